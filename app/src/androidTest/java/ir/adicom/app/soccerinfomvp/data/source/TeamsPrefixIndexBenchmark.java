@@ -0,0 +1,125 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.google.common.base.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the latency of {@link TeamsPrefixIndex#search} over a league of 50k teams, for each
+ * keystroke of a few typical queries. The median of each must stay under 1 ms.
+ * <p>
+ * Results are written to logcat under the {@code TeamsPrefixIndexBenchmark} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TeamsPrefixIndexBenchmark {
+
+    private static final String TAG = "TeamsPrefixIndexBenchmark";
+
+    private static final int TEAM_COUNT = 50000;
+
+    private static final int RUNS = 51;
+
+    private static final int LIMIT = 100;
+
+    private static final long MAX_MEDIAN_NANOS = 1000 * 1000;
+
+    private static final String[] SUFFIXES = {
+            "United", "City", "FC", "Athletic", "Rovers", "Wanderers", "Town", "Sporting",
+            // Persian "club", also typed with an Arabic kaf, and "shahr".
+            "\u06a9\u0644\u0648\u0628", "\u0643\u0644\u0648\u0628", "\u0634\u0647\u0631"
+    };
+
+    private String[] mCities;
+
+    private TeamsPrefixIndex mIndex;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        mCities = new String[300];
+        for (int i = 0; i < mCities.length; i++) {
+            mCities[i] = randomWord(random);
+        }
+
+        final List<Team> teams = new ArrayList<>(TEAM_COUNT);
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(new Team(mCities[random.nextInt(mCities.length)] + " "
+                    + SUFFIXES[random.nextInt(SUFFIXES.length)] + " " + i, "", "team" + i,
+                    i % 2 == 0));
+        }
+        mIndex = new TeamsPrefixIndex(new Supplier<List<Team>>() {
+            @Override
+            public List<Team> get() {
+                return teams;
+            }
+        });
+
+        long start = System.nanoTime();
+        mIndex.search("a", TeamsFilterType.ALL_TEAMS, LIMIT);
+        Log.i(TAG, "build: " + (System.nanoTime() - start) / 1000 + " us");
+    }
+
+    @Test
+    public void keystrokes_typicalQueries_under1Ms() {
+        String[] queries = {
+                mCities[0], mCities[1] + " ro", "city 1", "\u06a9\u0644\u0648\u0628"
+        };
+        for (String query : queries) {
+            for (int length = 1; length <= query.length(); length++) {
+                for (TeamsFilterType filterType : new TeamsFilterType[]{
+                        TeamsFilterType.ALL_TEAMS, TeamsFilterType.TOP_TEAMS}) {
+                    String typed = query.substring(0, length);
+                    long median = medianNanos(typed, filterType);
+                    Log.i(TAG, "\"" + typed + "\" " + filterType + ": " + median / 1000 + " us");
+                    assertTrue("\"" + typed + "\" took " + median + " ns",
+                            median < MAX_MEDIAN_NANOS);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void put_patchesIndex() {
+        long start = System.nanoTime();
+        mIndex.put(new Team("Zzyzx Rovers", "", "team0"));
+        Log.i(TAG, "put: " + (System.nanoTime() - start) / 1000 + " us");
+
+        assertFalse(mIndex.search("zzy", TeamsFilterType.ALL_TEAMS, LIMIT).isEmpty());
+    }
+
+    private long medianNanos(String query, TeamsFilterType filterType) {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            List<Team> teams = mIndex.search(query, filterType, LIMIT);
+            nanos[i] = System.nanoTime() - start;
+            assertFalse(teams.isEmpty());
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[5 + random.nextInt(5)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
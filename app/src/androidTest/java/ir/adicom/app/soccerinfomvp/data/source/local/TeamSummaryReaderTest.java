@@ -0,0 +1,50 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.database.MatrixCursor;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TeamSummaryReader} over an in-memory cursor.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TeamSummaryReaderTest {
+
+    private static final int ROWS = 1000;
+
+    @Test
+    public void readAll_buildsSummariesInRowOrder() {
+        // Columns out of the usual order, to check they are looked up by name.
+        MatrixCursor cursor = new MatrixCursor(new String[]{
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION,
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE_FOR_LIST,
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID});
+        for (int i = 0; i < ROWS; i++) {
+            cursor.addRow(new Object[]{i % 2, "Team " + i, "id-" + i});
+        }
+        // Rows already moved past are read too.
+        cursor.moveToPosition(10);
+
+        List<Team> teams = TeamSummaryReader.readAll(cursor);
+
+        assertEquals(ROWS, teams.size());
+        Team team = teams.get(501);
+        assertEquals("id-501", team.getId());
+        assertEquals("Team 501", team.getTitleForList());
+        assertTrue(team.isSummary());
+        assertTrue(team.isChampion());
+        assertFalse(teams.get(0).isChampion());
+        assertFalse(cursor.isClosed());
+        cursor.close();
+    }
+}
@@ -0,0 +1,106 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Micro-benchmark comparing the per-operation latency of opening and closing the database around
+ * every query with keeping one connection open, as {@link TeamsLocalDataSource} does.
+ * <p>
+ * Results are written to logcat under the {@code TeamsDbBenchmark} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TeamsDbBenchmark {
+
+    private static final String TAG = "TeamsDbBenchmark";
+
+    private static final String DATABASE_NAME = "TeamsBenchmark.db";
+
+    private static final int TEAM_COUNT = 500;
+
+    private static final int OPERATIONS = 1000;
+
+    private Context mContext;
+
+    private String[] mTeamIds;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+
+        mTeamIds = new String[TEAM_COUNT];
+        TeamsDbHelper helper = new TeamsDbHelper(mContext, DATABASE_NAME);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                mTeamIds[i] = UUID.randomUUID().toString();
+                ContentValues values = new ContentValues();
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID, mTeamIds[i]);
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE, "Team " + i);
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION, "Description " + i);
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION, i % 2 == 0);
+                db.insert(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        helper.close();
+    }
+
+    @After
+    public void tearDown() {
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void openPerOperation_vs_longLivedConnection() {
+        TeamsDbHelper helper = new TeamsDbHelper(mContext, DATABASE_NAME);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            SQLiteDatabase db = helper.getReadableDatabase();
+            readTeam(db, mTeamIds[i % TEAM_COUNT]);
+            db.close();
+        }
+        long openPerOperationNanos = (System.nanoTime() - start) / OPERATIONS;
+
+        SQLiteDatabase db = helper.getWritableDatabase();
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            readTeam(db, mTeamIds[i % TEAM_COUNT]);
+        }
+        long longLivedNanos = (System.nanoTime() - start) / OPERATIONS;
+        helper.close();
+
+        Log.i(TAG, "open/close per operation: " + openPerOperationNanos + " ns/op");
+        Log.i(TAG, "long-lived connection:    " + longLivedNanos + " ns/op");
+        assertTrue(openPerOperationNanos > 0 && longLivedNanos > 0);
+    }
+
+    private static void readTeam(SQLiteDatabase db, String teamId) {
+        Cursor c = db.query(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null,
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " = ?",
+                new String[]{ teamId }, null, null, null);
+        if (c != null) {
+            c.moveToFirst();
+            c.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the latency of {@link TeamsLocalDataSource#search} over a league of 100k teams, for the
+ * first page of a few typical queries. The median of each must stay under 10 ms.
+ * <p>
+ * Results are written to logcat under the {@code TeamsSearchBenchmark} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TeamsSearchBenchmark {
+
+    private static final String TAG = "TeamsSearchBenchmark";
+
+    private static final String DATABASE_NAME = "TeamsSearchBenchmark.db";
+
+    private static final int TEAM_COUNT = 100000;
+
+    private static final int RUNS = 51;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final long MAX_MEDIAN_NANOS = 10 * 1000 * 1000;
+
+    private static final String[] SUFFIXES = {
+            "United", "City", "FC", "Athletic", "Rovers", "Wanderers", "Town", "Sporting"
+    };
+
+    private Context mContext;
+
+    private TeamsDbHelper mHelper;
+
+    private String[] mCities;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+
+        Random random = new Random(1);
+        mCities = new String[300];
+        for (int i = 0; i < mCities.length; i++) {
+            mCities[i] = randomWord(random);
+        }
+
+        mHelper = new TeamsDbHelper(mContext, DATABASE_NAME);
+        SQLiteDatabase db = mHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " (" +
+                        TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + "," +
+                        TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                        TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION + "," +
+                        TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION +
+                ") VALUES (?,?,?,?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                insert.bindString(1, "team" + i);
+                insert.bindString(2, mCities[random.nextInt(mCities.length)] + " "
+                        + SUFFIXES[random.nextInt(SUFFIXES.length)] + " " + i);
+                insert.bindString(3, "Founded in " + mCities[random.nextInt(mCities.length)]
+                        + " in " + (1880 + i % 140));
+                insert.bindLong(4, i % 2);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mHelper.close();
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void firstPage_typicalQueries_under10Ms() {
+        SQLiteDatabase db = mHelper.getWritableDatabase();
+        String[] queries = {
+                // A city being typed, a full one, a city with a suffix, a word in most titles.
+                mCities[0].substring(0, 3), mCities[1], mCities[2] + " unit", "city", "founded"
+        };
+        for (String query : queries) {
+            for (TeamsFilterType filterType : new TeamsFilterType[]{
+                    TeamsFilterType.ALL_TEAMS, TeamsFilterType.TOP_TEAMS}) {
+                long median = medianNanos(db, query, filterType);
+                Log.i(TAG, "\"" + query + "\" " + filterType + ": " + median / 1000 + " us");
+                assertTrue("\"" + query + "\" took " + median + " ns", median < MAX_MEDIAN_NANOS);
+            }
+        }
+    }
+
+    private static long medianNanos(SQLiteDatabase db, String query, TeamsFilterType filterType) {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            Cursor c = TeamsLocalDataSource.search(db, query, filterType, 0, PAGE_SIZE);
+            assertTrue(c != null && c.getCount() > 0);
+            c.close();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[5 + random.nextInt(5)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
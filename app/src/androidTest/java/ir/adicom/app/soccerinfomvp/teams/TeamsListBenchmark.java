@@ -0,0 +1,146 @@
+package ir.adicom.app.soccerinfomvp.teams;
+
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.R;
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Frame-time benchmark scrolling a long league through {@link TeamsAdapter}.
+ * <p>
+ * Each frame scrolls the list by a fixed distance, which binds the rows coming into view, and
+ * is timed on the main thread. Allocations and binds are counted over the steady-state frames,
+ * after the view holders have been created. The 90th percentile frame must fit in
+ * {@link #FRAME_BUDGET_NANOS}, and only the rows scrolled into view may be bound.
+ * <p>
+ * Results are written to logcat under the {@code TeamsListBenchmark} tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TeamsListBenchmark {
+
+    private static final String TAG = "TeamsListBenchmark";
+
+    private static final int TEAM_COUNT = 2000;
+
+    private static final int WIDTH_PX = 1080;
+
+    private static final int HEIGHT_PX = 1920;
+
+    private static final int SCROLL_PER_FRAME_PX = 120;
+
+    private static final int WARMUP_FRAMES = 100;
+
+    private static final int FRAMES = 500;
+
+    /**
+     * One frame at 60 Hz.
+     */
+    private static final long FRAME_BUDGET_NANOS = 16 * 1000 * 1000;
+
+    @Test
+    public void scrollLongLeague() {
+        final long[] frameNanos = new long[FRAMES];
+        final int[] allocations = new int[1];
+        final int[] binds = new int[1];
+        final int[] rowHeight = new int[1];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RecyclerView list = newList(binds);
+                for (int i = 0; i < WARMUP_FRAMES; i++) {
+                    scrollOneFrame(list);
+                }
+                rowHeight[0] = list.getChildAt(0).getHeight();
+
+                binds[0] = 0;
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                for (int i = 0; i < FRAMES; i++) {
+                    long start = System.nanoTime();
+                    scrollOneFrame(list);
+                    frameNanos[i] = System.nanoTime() - start;
+                }
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+
+        Arrays.sort(frameNanos);
+        Log.i(TAG, "median frame: " + frameNanos[FRAMES / 2] / 1000 + " us");
+        Log.i(TAG, "90th pct frame: " + frameNanos[FRAMES * 9 / 10] / 1000 + " us");
+        Log.i(TAG, "worst frame: " + frameNanos[FRAMES - 1] / 1000 + " us");
+        Log.i(TAG, "allocations per frame: " + (float) allocations[0] / FRAMES);
+        Log.i(TAG, "binds: " + binds[0]);
+
+        long p90 = frameNanos[FRAMES * 9 / 10];
+        assertTrue("90th pct frame took " + p90 + " ns", p90 < FRAME_BUDGET_NANOS);
+        // Rows still on screen are never bound again, only the ones scrolled into view, counting
+        // a partly shown row at each end.
+        int scrolledIntoView = FRAMES * SCROLL_PER_FRAME_PX / rowHeight[0] + 2;
+        assertTrue(binds[0] + " binds for " + scrolledIntoView + " rows scrolled into view",
+                binds[0] <= scrolledIntoView);
+    }
+
+    /**
+     * @param binds counts the rows bound, in its first element
+     */
+    private static RecyclerView newList(final int[] binds) {
+        ContextThemeWrapper context = new ContextThemeWrapper(
+                InstrumentationRegistry.getTargetContext(), R.style.AppTheme);
+        RecyclerView list = new RecyclerView(context);
+        list.setLayoutManager(new LinearLayoutManager(context));
+
+        List<Team> teams = new ArrayList<>(TEAM_COUNT);
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(new Team("Team " + i, "Description " + i, "team" + i, i % 3 == 0));
+        }
+        list.setAdapter(new TeamsAdapter(teams, new TeamsFragment.TeamItemListener() {
+            @Override
+            public void onTeamClick(Team clickedTeam) {
+            }
+
+            @Override
+            public void onCompleteTeamClick(Team championTeam) {
+            }
+
+            @Override
+            public void onNormalTeamClick(Team normalTeam) {
+            }
+        }) {
+            @Override
+            public void onBindViewHolder(ViewHolder holder, int position) {
+                binds[0]++;
+                super.onBindViewHolder(holder, position);
+            }
+        });
+
+        list.measure(View.MeasureSpec.makeMeasureSpec(WIDTH_PX, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT_PX, View.MeasureSpec.EXACTLY));
+        list.layout(0, 0, WIDTH_PX, HEIGHT_PX);
+        return list;
+    }
+
+    /**
+     * The league is long enough that the list never reaches its end.
+     */
+    private static void scrollOneFrame(RecyclerView list) {
+        list.scrollBy(0, SCROLL_PER_FRAME_PX);
+    }
+}
@@ -0,0 +1,132 @@
+package ir.adicom.app.soccerinfomvp;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.CacheStats;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.source.CachePolicy;
+import ir.adicom.app.soccerinfomvp.data.source.TeamsDataSource;
+import ir.adicom.app.soccerinfomvp.data.source.TeamsRepository;
+import ir.adicom.app.soccerinfomvp.data.source.local.TeamsListSnapshot;
+import ir.adicom.app.soccerinfomvp.data.source.local.TeamsLocalDataSource;
+import ir.adicom.app.soccerinfomvp.data.source.metrics.InMemoryMetricsReporter;
+import ir.adicom.app.soccerinfomvp.data.source.metrics.InstrumentedTeamsDataSource;
+import ir.adicom.app.soccerinfomvp.data.source.remote.TeamsRemoteDataSource;
+import ir.adicom.app.soccerinfomvp.util.AppExecutors;
+import ir.adicom.app.soccerinfomvp.util.StartupTimeline;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Provides the data layer. Each object is built on first use and then shared, so nothing is
+ * created before something needs it.
+ * <p>
+ * {@link #warmUp(Context)} reads the last list shown, then builds the repository and fills its
+ * cache, on the disk thread while the first activity inflates, so they are ready, or nearly, when
+ * the activity asks for them.
+ */
+public final class Injection {
+
+    // Keep up to ~2 MB of teams in memory, refreshed from the network every 10 minutes.
+    private static final CachePolicy CACHE_POLICY =
+            CachePolicy.maxWeight(2 * 1024 * 1024, CachePolicy.BYTE_WEIGHER)
+                    .expireAfterWrite(10, TimeUnit.MINUTES);
+
+    private static AppExecutors sAppExecutors;
+
+    private static TeamsRepository sTeamsRepository;
+
+    private static TeamsListSnapshot sTeamsListSnapshot;
+
+    private Injection() {
+    }
+
+    public static synchronized AppExecutors provideAppExecutors() {
+        if (sAppExecutors == null) {
+            sAppExecutors = new AppExecutors();
+        }
+        return sAppExecutors;
+    }
+
+    public static synchronized InMemoryMetricsReporter provideMetricsReporter() {
+        return InMemoryMetricsReporter.getInstance();
+    }
+
+    /**
+     * Returns the repository, building it and its data sources if necessary. Blocks while
+     * {@link #warmUp(Context)} is building it.
+     */
+    public static synchronized TeamsRepository provideTeamsRepository(@NonNull Context context) {
+        checkNotNull(context);
+        if (sTeamsRepository == null) {
+            AppExecutors appExecutors = provideAppExecutors();
+            InMemoryMetricsReporter metrics = provideMetricsReporter();
+            TeamsLocalDataSource localDataSource =
+                    TeamsLocalDataSource.getInstance(appExecutors, context.getApplicationContext());
+            final TeamsRepository repository = TeamsRepository.getInstance(
+                    new InstrumentedTeamsDataSource("remote",
+                            TeamsRemoteDataSource.getInstance(appExecutors), metrics),
+                    new InstrumentedTeamsDataSource("local", localDataSource, metrics),
+                    CACHE_POLICY, localDataSource);
+            metrics.trackCache("repository", new Supplier<CacheStats>() {
+                @Override
+                public CacheStats get() {
+                    return repository.getCacheStats();
+                }
+            });
+            sTeamsRepository = repository;
+            StartupTimeline.getInstance().mark("repository created");
+        }
+        return sTeamsRepository;
+    }
+
+    public static synchronized TeamsListSnapshot provideTeamsListSnapshot(
+            @NonNull Context context) {
+        if (sTeamsListSnapshot == null) {
+            sTeamsListSnapshot = new TeamsListSnapshot(
+                    new File(context.getApplicationContext().getFilesDir(), "teams.snapshot"),
+                    provideAppExecutors().diskIO(), new TeamsListSnapshot.ErrorReporter() {
+                        @Override
+                        public void onError(@NonNull String message, @NonNull Exception e) {
+                            Log.w("TeamsListSnapshot", message, e);
+                        }
+                    });
+        }
+        return sTeamsListSnapshot;
+    }
+
+    /**
+     * Reads the list snapshot on the disk thread, then builds the repository, opens the database
+     * and fills the cache from it. Meant to be called once, as the application starts.
+     */
+    public static void warmUp(@NonNull Context context) {
+        final Context applicationContext = checkNotNull(context).getApplicationContext();
+        provideAppExecutors().diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                provideTeamsListSnapshot(applicationContext).preload();
+                StartupTimeline.getInstance().mark("snapshot read");
+                provideTeamsRepository(applicationContext).warmUp(
+                        new TeamsDataSource.LoadTeamsCallback() {
+                            @Override
+                            public void onTeamsLoaded(List<Team> teams) {
+                                StartupTimeline.getInstance().mark("cache warm");
+                            }
+
+                            @Override
+                            public void onDataNotAvailable() {
+                                StartupTimeline.getInstance().mark("database empty");
+                            }
+                        });
+            }
+        });
+    }
+}
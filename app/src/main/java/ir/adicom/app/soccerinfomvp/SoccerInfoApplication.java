@@ -0,0 +1,44 @@
+package ir.adicom.app.soccerinfomvp;
+
+import android.app.Application;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.util.StartupTimeline;
+import ir.adicom.app.soccerinfomvp.util.tracing.LogSpanReporter;
+import ir.adicom.app.soccerinfomvp.util.tracing.SystraceSectionTracer;
+import ir.adicom.app.soccerinfomvp.util.tracing.Tracing;
+
+/**
+ * Starts the clock of the {@link StartupTimeline} and the warm-up of the data layer, so the
+ * database is opened while the first activity inflates instead of after it.
+ */
+public class SoccerInfoApplication extends Application {
+
+    private static final String STARTUP_TAG = "Startup";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTimeline startup = StartupTimeline.getInstance();
+        startup.mark("application created");
+        startup.setReporter(new StartupTimeline.Reporter() {
+            @Override
+            public void onFinished(@NonNull String timeline) {
+                Log.i(STARTUP_TAG, timeline);
+            }
+        });
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Tracing.setSectionTracer(new SystraceSectionTracer());
+        }
+        if (BuildConfig.DEBUG) {
+            Injection.provideMetricsReporter().startPeriodicDump(1, TimeUnit.MINUTES);
+            Tracing.setReporter(new LogSpanReporter());
+        }
+        Injection.warmUp(this);
+    }
+}
@@ -24,6 +24,8 @@ public final class Team {
 
     private final boolean mChampion;
 
+    private final boolean mSummary;
+
     /**
      * Use this constructor to create a new normal Team.
      *
@@ -68,10 +70,36 @@ public final class Team {
      */
     public Team(@Nullable String title, @Nullable String description,
                 @NonNull String id, boolean champion) {
+        this(title, description, id, champion, false);
+    }
+
+    private Team(@Nullable String title, @Nullable String description,
+                 @NonNull String id, boolean champion, boolean summary) {
         mId = id;
         mTitle = title;
         mDescription = description;
         mChampion = champion;
+        mSummary = summary;
+    }
+
+    /**
+     * Use this to create a Team for a list, which only carries what a list row shows. Its title is
+     * {@code titleForList} and it has no description, see {@link #isSummary()}.
+     *
+     * @param id           id of the team
+     * @param titleForList what {@link #getTitleForList()} returns for the full team
+     * @param champion     true if the team is champion, false if it's normal
+     */
+    public static Team summary(@NonNull String id, @Nullable String titleForList,
+                               boolean champion) {
+        return new Team(titleForList, null, id, champion, true);
+    }
+
+    /**
+     * Returns a copy of this team with the given champion flag, a summary if this is one.
+     */
+    public Team withChampion(boolean champion) {
+        return new Team(mTitle, mDescription, mId, champion, mSummary);
     }
 
     @NonNull
@@ -102,6 +130,14 @@ public final class Team {
         return mChampion;
     }
 
+    /**
+     * Returns true if this team was read for a list and lacks its description. Load the full team
+     * by its id to show its details.
+     */
+    public boolean isSummary() {
+        return mSummary;
+    }
+
     public boolean isNormal() {
         return !mChampion;
     }
@@ -0,0 +1,89 @@
+package ir.adicom.app.soccerinfomvp.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable set of changes to the teams, bringing a store up to {@link #getVersion()}.
+ * <p>
+ * A delta holds the teams written and the ids of the teams deleted (tombstones) since an earlier
+ * version. A full snapshot holds every team and replaces whatever the store had, which is what the
+ * backend sends when the requested version is too old to compute a delta from.
+ */
+public final class TeamChanges {
+
+    /**
+     * Version of a store that has never synced.
+     */
+    public static final long NO_VERSION = 0;
+
+    private final long mVersion;
+
+    private final boolean mFullSnapshot;
+
+    @NonNull
+    private final List<Team> mUpdatedTeams;
+
+    @NonNull
+    private final List<String> mDeletedTeamIds;
+
+    private TeamChanges(long version, boolean fullSnapshot, @NonNull List<Team> updatedTeams,
+                        @NonNull List<String> deletedTeamIds) {
+        checkArgument(version >= NO_VERSION, "version must not be negative");
+        mVersion = version;
+        mFullSnapshot = fullSnapshot;
+        mUpdatedTeams = Collections.unmodifiableList(checkNotNull(updatedTeams));
+        mDeletedTeamIds = Collections.unmodifiableList(checkNotNull(deletedTeamIds));
+    }
+
+    /**
+     * Use this to describe the teams written and deleted since an earlier version.
+     */
+    public static TeamChanges delta(long version, @NonNull List<Team> updatedTeams,
+                                    @NonNull List<String> deletedTeamIds) {
+        return new TeamChanges(version, false, updatedTeams, deletedTeamIds);
+    }
+
+    /**
+     * Use this to replace every team with {@code teams}.
+     */
+    public static TeamChanges fullSnapshot(long version, @NonNull List<Team> teams) {
+        return new TeamChanges(version, true, teams, Collections.<String>emptyList());
+    }
+
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public boolean isFullSnapshot() {
+        return mFullSnapshot;
+    }
+
+    /**
+     * Returns the teams added or modified, or every team for a full snapshot.
+     */
+    @NonNull
+    public List<Team> getUpdatedTeams() {
+        return mUpdatedTeams;
+    }
+
+    @NonNull
+    public List<String> getDeletedTeamIds() {
+        return mDeletedTeamIds;
+    }
+
+    public boolean isEmpty() {
+        return !mFullSnapshot && mUpdatedTeams.isEmpty() && mDeletedTeamIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return (mFullSnapshot ? "Full snapshot" : "Delta") + " to version " + mVersion + ": "
+                + mUpdatedTeams.size() + " updated, " + mDeletedTeamIds.size() + " deleted";
+    }
+}
@@ -0,0 +1,126 @@
+package ir.adicom.app.soccerinfomvp.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable change made to the teams by the user, waiting in the outbox to be sent to the
+ * backend.
+ */
+public final class TeamMutation {
+
+    public enum Type {
+        /**
+         * Stores the whole team, adding or replacing it.
+         */
+        SAVE,
+
+        CHAMPION,
+
+        NORMAL,
+
+        DELETE,
+
+        CLEAR_CHAMPIONS,
+
+        DELETE_ALL;
+
+        /**
+         * Returns true if this type applies to every team rather than to one.
+         */
+        public boolean isGlobal() {
+            return this == CLEAR_CHAMPIONS || this == DELETE_ALL;
+        }
+    }
+
+    /**
+     * Sequence of a mutation not stored in the outbox yet.
+     */
+    public static final long NO_SEQUENCE = 0;
+
+    private final long mSequence;
+
+    @NonNull
+    private final Type mType;
+
+    @Nullable
+    private final String mTeamId;
+
+    @Nullable
+    private final Team mTeam;
+
+    private TeamMutation(long sequence, @NonNull Type type, @Nullable String teamId,
+                         @Nullable Team team) {
+        mSequence = sequence;
+        mType = type;
+        mTeamId = teamId;
+        mTeam = team;
+    }
+
+    public static TeamMutation save(@NonNull Team team) {
+        return new TeamMutation(NO_SEQUENCE, Type.SAVE, team.getId(), team);
+    }
+
+    public static TeamMutation champion(@NonNull String teamId) {
+        return new TeamMutation(NO_SEQUENCE, Type.CHAMPION, checkNotNull(teamId), null);
+    }
+
+    public static TeamMutation normal(@NonNull String teamId) {
+        return new TeamMutation(NO_SEQUENCE, Type.NORMAL, checkNotNull(teamId), null);
+    }
+
+    public static TeamMutation delete(@NonNull String teamId) {
+        return new TeamMutation(NO_SEQUENCE, Type.DELETE, checkNotNull(teamId), null);
+    }
+
+    public static TeamMutation clearChampions() {
+        return new TeamMutation(NO_SEQUENCE, Type.CLEAR_CHAMPIONS, null, null);
+    }
+
+    public static TeamMutation deleteAll() {
+        return new TeamMutation(NO_SEQUENCE, Type.DELETE_ALL, null, null);
+    }
+
+    /**
+     * Use this to rebuild a mutation read back from the outbox.
+     */
+    public static TeamMutation fromOutbox(long sequence, @NonNull Type type,
+                                          @Nullable String teamId, @Nullable Team team) {
+        return new TeamMutation(sequence, checkNotNull(type), teamId, team);
+    }
+
+    /**
+     * Returns the position of this mutation in the outbox, or {@link #NO_SEQUENCE}.
+     */
+    public long getSequence() {
+        return mSequence;
+    }
+
+    @NonNull
+    public Type getType() {
+        return mType;
+    }
+
+    /**
+     * Returns the id of the team changed, or null for a global mutation.
+     */
+    @Nullable
+    public String getTeamId() {
+        return mTeamId;
+    }
+
+    /**
+     * Returns the team stored by a {@link Type#SAVE}, or null.
+     */
+    @Nullable
+    public Team getTeam() {
+        return mTeam;
+    }
+
+    @Override
+    public String toString() {
+        return mType + (mTeamId == null ? "" : " " + mTeamId);
+    }
+}
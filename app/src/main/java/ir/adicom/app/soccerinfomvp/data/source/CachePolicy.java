@@ -0,0 +1,107 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+/**
+ * Sizing and expiry rules for the in-memory teams cache of {@link TeamsRepository}.
+ * <p>
+ * Once the total weight of the cached teams exceeds the maximum, the least recently used teams
+ * are evicted. A team older than the time-to-live is still served, but triggers a refresh.
+ */
+public final class CachePolicy {
+
+    /**
+     * Computes the weight of a cached team, e.g. an estimate of its size in bytes.
+     */
+    public interface Weigher {
+
+        int weigh(@NonNull Team team);
+    }
+
+    private static final Weigher SINGLETON_WEIGHER = new Weigher() {
+        @Override
+        public int weigh(@NonNull Team team) {
+            return 1;
+        }
+    };
+
+    /**
+     * Rough footprint of a team: its strings as UTF-16 plus a fixed overhead for the objects.
+     */
+    public static final Weigher BYTE_WEIGHER = new Weigher() {
+        @Override
+        public int weigh(@NonNull Team team) {
+            return 64 + 2 * (length(team.getId()) + length(team.getTitle())
+                    + length(team.getDescription()));
+        }
+
+        private int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    };
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final long mMaxWeight;
+
+    private final Weigher mWeigher;
+
+    private final long mTimeToLiveNanos;
+
+    private CachePolicy(long maxWeight, @NonNull Weigher weigher, long timeToLiveNanos) {
+        mMaxWeight = maxWeight;
+        mWeigher = weigher;
+        mTimeToLiveNanos = timeToLiveNanos;
+    }
+
+    /**
+     * A cache that never evicts nor expires.
+     */
+    public static CachePolicy unbounded() {
+        return new CachePolicy(Long.MAX_VALUE, SINGLETON_WEIGHER, NO_EXPIRY);
+    }
+
+    /**
+     * A cache holding at most {@code maxEntries} teams.
+     */
+    public static CachePolicy maxEntries(int maxEntries) {
+        checkArgument(maxEntries > 0, "maxEntries must be positive");
+        return new CachePolicy(maxEntries, SINGLETON_WEIGHER, NO_EXPIRY);
+    }
+
+    /**
+     * A cache whose teams weigh at most {@code maxWeight} in total, as computed by
+     * {@code weigher}.
+     */
+    public static CachePolicy maxWeight(long maxWeight, @NonNull Weigher weigher) {
+        checkArgument(maxWeight > 0, "maxWeight must be positive");
+        return new CachePolicy(maxWeight, checkNotNull(weigher), NO_EXPIRY);
+    }
+
+    /**
+     * Returns a copy of this policy whose teams expire {@code duration} after they were written.
+     */
+    public CachePolicy expireAfterWrite(long duration, @NonNull TimeUnit unit) {
+        checkArgument(duration > 0, "duration must be positive");
+        return new CachePolicy(mMaxWeight, mWeigher, checkNotNull(unit).toNanos(duration));
+    }
+
+    long getMaxWeight() {
+        return mMaxWeight;
+    }
+
+    int weigh(@NonNull Team team) {
+        return mWeigher.weigh(team);
+    }
+
+    boolean isExpired(long writtenAtNanos, long nowNanos) {
+        return mTimeToLiveNanos != NO_EXPIRY && nowNanos - writtenAtNanos >= mTimeToLiveNanos;
+    }
+}
@@ -0,0 +1,84 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Identifies one load request made to the {@link TeamsRepository}. Cancelling it stops the
+ * result from reaching the caller; the underlying fetch still completes and still updates the
+ * cache for whoever else is waiting on it.
+ * <p>
+ * Tokens are created, cancelled and checked on the main thread.
+ */
+public final class LoadToken {
+
+    private boolean mCancelled;
+
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Wraps {@code callback} so it is only called while this token isn't cancelled.
+     */
+    @NonNull
+    TeamsDataSource.LoadTeamsCallback guard(@NonNull final TeamsDataSource.LoadTeamsCallback callback) {
+        checkNotNull(callback);
+        return new TeamsDataSource.LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                if (!mCancelled) {
+                    callback.onTeamsLoaded(teams);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                if (!mCancelled) {
+                    callback.onDataNotAvailable();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps {@code callback} so neither of its deliveries happens once this token is cancelled.
+     */
+    @NonNull
+    TeamsRepository.RevalidateTeamsCallback guard(
+            @NonNull final TeamsRepository.RevalidateTeamsCallback callback) {
+        checkNotNull(callback);
+        return new TeamsRepository.RevalidateTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                if (!mCancelled) {
+                    callback.onTeamsLoaded(teams);
+                }
+            }
+
+            @Override
+            public void onTeamsChanged(TeamChanges changes) {
+                if (!mCancelled) {
+                    callback.onTeamsChanged(changes);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                if (!mCancelled) {
+                    callback.onDataNotAvailable();
+                }
+            }
+        };
+    }
+}
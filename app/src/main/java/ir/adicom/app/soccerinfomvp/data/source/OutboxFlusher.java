@@ -0,0 +1,170 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sends the {@link TeamsOutbox} to the remote data source in batches.
+ * <p>
+ * A flush requested after a change waits a little first, so a burst of edits goes out as one
+ * batch. A failed batch stays in the outbox and is retried with exponential backoff.
+ * <p>
+ * Safe to use from any thread.
+ */
+final class OutboxFlusher {
+
+    /**
+     * Called on the main thread, where the outbox and the remote data source deliver.
+     */
+    interface FlushCallback {
+
+        /**
+         * @param drained true if the outbox was empty when the flush ended
+         */
+        void onFlushed(boolean drained);
+    }
+
+    static final int MAX_BATCH_SIZE = 50;
+
+    static final long BATCH_DELAY_MILLIS = 2000;
+
+    static final long MIN_BACKOFF_MILLIS = 1000;
+
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final TeamsOutbox mOutbox;
+
+    private final TeamsDataSource mRemoteDataSource;
+
+    private final ScheduledExecutorService mScheduler;
+
+    private final List<FlushCallback> mCallbacks = new ArrayList<>();
+
+    private boolean mFlushing;
+
+    /**
+     * Set when a flush is requested while one runs, since the running one may already have read
+     * the outbox.
+     */
+    private boolean mFlushRequested;
+
+    @Nullable
+    private ScheduledFuture<?> mScheduledFlush;
+
+    private long mBackoffMillis = 0;
+
+    OutboxFlusher(@NonNull TeamsOutbox outbox, @NonNull TeamsDataSource remoteDataSource,
+                  @NonNull ScheduledExecutorService scheduler) {
+        mOutbox = checkNotNull(outbox);
+        mRemoteDataSource = checkNotNull(remoteDataSource);
+        mScheduler = checkNotNull(scheduler);
+    }
+
+    /**
+     * Flushes after {@link #BATCH_DELAY_MILLIS}, or when the retry already scheduled is due.
+     */
+    synchronized void requestFlush() {
+        if (mFlushing) {
+            mFlushRequested = true;
+        } else if (mScheduledFlush == null) {
+            schedule(BATCH_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Flushes right away, skipping any wait, and calls {@code callback} once done.
+     */
+    void flushNow(@NonNull FlushCallback callback) {
+        synchronized (this) {
+            mCallbacks.add(checkNotNull(callback));
+            if (mFlushing) {
+                return;
+            }
+            if (mScheduledFlush != null) {
+                mScheduledFlush.cancel(false);
+                mScheduledFlush = null;
+            }
+            mFlushing = true;
+        }
+        flushBatch();
+    }
+
+    private void schedule(long delayMillis) {
+        mScheduledFlush = mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (OutboxFlusher.this) {
+                    mScheduledFlush = null;
+                    if (mFlushing) {
+                        return;
+                    }
+                    mFlushing = true;
+                }
+                flushBatch();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushBatch() {
+        synchronized (this) {
+            mFlushRequested = false;
+        }
+        mOutbox.getPendingMutations(MAX_BATCH_SIZE, new TeamsOutbox.LoadTeamMutationsCallback() {
+            @Override
+            public void onTeamMutationsLoaded(final List<TeamMutation> mutations) {
+                if (mutations.isEmpty()) {
+                    finish(true);
+                    return;
+                }
+                mRemoteDataSource.pushTeamMutations(mutations,
+                        new TeamsDataSource.PushTeamMutationsCallback() {
+                            @Override
+                            public void onTeamMutationsPushed() {
+                                mOutbox.removeMutations(mutations);
+                                synchronized (OutboxFlusher.this) {
+                                    mBackoffMillis = 0;
+                                }
+                                // Keep going until the outbox is empty.
+                                flushBatch();
+                            }
+
+                            @Override
+                            public void onPushFailed() {
+                                mOutbox.releaseMutations();
+                                finish(false);
+                            }
+                        });
+            }
+        });
+    }
+
+    private void finish(boolean drained) {
+        List<FlushCallback> callbacks;
+        synchronized (this) {
+            mFlushing = false;
+            if (!drained) {
+                mBackoffMillis = Math.min(MAX_BACKOFF_MILLIS,
+                        Math.max(MIN_BACKOFF_MILLIS, mBackoffMillis * 2));
+                schedule(mBackoffMillis);
+            } else if (mFlushRequested) {
+                mFlushRequested = false;
+                schedule(BATCH_DELAY_MILLIS);
+            }
+            callbacks = new ArrayList<>(mCallbacks);
+            mCallbacks.clear();
+        }
+        for (FlushCallback callback : callbacks) {
+            callback.onFlushed(drained);
+        }
+    }
+}
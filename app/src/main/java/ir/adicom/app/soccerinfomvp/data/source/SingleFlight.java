@@ -0,0 +1,75 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps at most one load in flight per key. The first caller for a key starts the load, and
+ * callers arriving before it lands wait on it instead of starting their own.
+ * <p>
+ * Safe to use from any thread.
+ *
+ * @param <K> the key identifying a load
+ * @param <C> the callback type waiting on a load
+ */
+final class SingleFlight<K, C> {
+
+    /**
+     * One load in flight and the callbacks waiting on it.
+     */
+    static final class Flight<C> {
+
+        private final List<C> mCallbacks = new ArrayList<>();
+    }
+
+    private final Map<K, Flight<C>> mFlights = new HashMap<>();
+
+    /**
+     * Adds {@code callback} to the load in flight for {@code key}.
+     *
+     * @return the new flight if the caller has to start the load, or null if it joined a load
+     * already in flight
+     */
+    @Nullable
+    synchronized Flight<C> join(@NonNull K key, @NonNull C callback) {
+        checkNotNull(key);
+        checkNotNull(callback);
+        Flight<C> flight = mFlights.get(key);
+        if (flight != null) {
+            flight.mCallbacks.add(callback);
+            return null;
+        }
+        flight = new Flight<>();
+        flight.mCallbacks.add(callback);
+        mFlights.put(key, flight);
+        return flight;
+    }
+
+    /**
+     * Ends {@code flight} and returns every callback that waited on it, in the order they joined.
+     */
+    @NonNull
+    synchronized List<C> land(@NonNull K key, @NonNull Flight<C> flight) {
+        checkNotNull(flight);
+        // The flight may already have been detached by detachAll().
+        if (mFlights.get(key) == flight) {
+            mFlights.remove(key);
+        }
+        return flight.mCallbacks;
+    }
+
+    /**
+     * Lets the loads in flight finish for the callbacks already waiting on them, but makes later
+     * callers start new loads. Used when the data changed and an earlier load may be stale.
+     */
+    synchronized void detachAll() {
+        mFlights.clear();
+    }
+}
@@ -0,0 +1,376 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+/**
+ * In-memory cache of teams used by {@link TeamsRepository}.
+ * <p>
+ * The cached teams live in an immutable {@link Snapshot} published through a volatile field.
+ * Reads never lock and never copy: they see one consistent snapshot, in insertion order. Writers
+ * serialise on the cache, copy the current snapshot, change the copy and publish it in one
+ * assignment, so a refresh swaps every team at once.
+ * <p>
+ * Size and expiry follow a {@link CachePolicy}. When a write goes over the maximum weight, the
+ * least recently read teams are evicted, and the cache stops answering list reads until the next
+ * full refresh. Expired teams are still returned; callers check {@link #isExpired()} and refresh.
+ */
+final class TeamsCache {
+
+    private final CachePolicy mPolicy;
+
+    private final Ticker mTicker;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+
+    private final AtomicLong mMissCount = new AtomicLong();
+
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    private volatile Snapshot mSnapshot;
+
+    /**
+     * Marks the cache as invalid, to force an update the next time data is requested.
+     */
+    private volatile boolean mDirty = false;
+
+    /**
+     * Set when the last full refresh didn't fit under the policy's max weight. Until teams are
+     * removed, refilling the cache from every team would only evict again.
+     */
+    private volatile boolean mOverCapacity = false;
+
+    TeamsCache() {
+        this(CachePolicy.unbounded(), Ticker.systemTicker());
+    }
+
+    TeamsCache(@NonNull CachePolicy policy, @NonNull Ticker ticker) {
+        mPolicy = checkNotNull(policy);
+        mTicker = checkNotNull(ticker);
+        mSnapshot = new Snapshot(ImmutableMap.<String, Entry>of(), false, ticker.read());
+    }
+
+    /**
+     * Returns true if the cache holds every team and hasn't been marked dirty, i.e. list reads can
+     * be answered from it.
+     */
+    boolean isAvailable() {
+        return mSnapshot.mComplete && !mDirty;
+    }
+
+    boolean isDirty() {
+        return mDirty;
+    }
+
+    void markDirty() {
+        mDirty = true;
+    }
+
+    /**
+     * Returns true if every team was last found to weigh more than the cache holds, so list reads
+     * should go to the local data source without refilling the cache.
+     */
+    boolean isOverCapacity() {
+        return mOverCapacity;
+    }
+
+    /**
+     * Returns true if the last full refresh is older than the policy's time-to-live.
+     */
+    boolean isExpired() {
+        return mPolicy.isExpired(mSnapshot.mLoadedAt, mTicker.read());
+    }
+
+    boolean isExpired(@NonNull String teamId) {
+        Entry entry = mSnapshot.mEntries.get(checkNotNull(teamId));
+        return entry != null && mPolicy.isExpired(entry.mWrittenAt, mTicker.read());
+    }
+
+    /**
+     * Returns the cached teams matching {@code filterType}, or null if the cache can't answer
+     * list reads. Counts as a hit or a miss.
+     */
+    @Nullable
+    List<Team> getTeams(@NonNull TeamsFilterType filterType) {
+        if (!isAvailable()) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        return mSnapshot.getTeams(filterType);
+    }
+
+    /**
+     * Returns the cached team with {@code teamId}, or null. Counts as a hit or a miss, and as a use
+     * of the team for eviction.
+     */
+    @Nullable
+    Team get(@NonNull String teamId) {
+        Entry entry = mSnapshot.mEntries.get(checkNotNull(teamId));
+        if (entry == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        entry.mAccessedAt = mTicker.read();
+        return entry.mTeam;
+    }
+
+    /**
+     * Returns the current snapshot. It never changes, so callers can hold on to it.
+     */
+    @NonNull
+    Snapshot snapshot() {
+        return mSnapshot;
+    }
+
+    @NonNull
+    CacheStats stats() {
+        return new CacheStats(mHitCount.get(), mMissCount.get(), 0, 0, 0, mEvictionCount.get());
+    }
+
+    /**
+     * Replaces every cached team with {@code teams} and clears the dirty flag. Marks the cache over
+     * capacity if they don't all fit.
+     */
+    synchronized void replaceAll(@NonNull List<Team> teams) {
+        long now = mTicker.read();
+        Map<String, Entry> entries = new LinkedHashMap<>(teams.size());
+        for (Team team : teams) {
+            entries.put(team.getId(), newEntry(team, now));
+        }
+        mOverCapacity = publish(entries, true, now);
+        mDirty = false;
+    }
+
+    /**
+     * Applies {@code changes} in one swap and clears the dirty flag. A delta applied to a complete
+     * cache leaves it complete.
+     */
+    synchronized void applyChanges(@NonNull TeamChanges changes) {
+        if (changes.isFullSnapshot()) {
+            replaceAll(changes.getUpdatedTeams());
+            return;
+        }
+        long now = mTicker.read();
+        Map<String, Entry> entries = new LinkedHashMap<>(mSnapshot.mEntries);
+        for (Team team : changes.getUpdatedTeams()) {
+            entries.put(team.getId(), newEntry(team, now));
+        }
+        for (String teamId : changes.getDeletedTeamIds()) {
+            entries.remove(teamId);
+        }
+        if (!changes.getDeletedTeamIds().isEmpty()) {
+            mOverCapacity = false;
+        }
+        publish(entries, mSnapshot.mComplete, now);
+        mDirty = false;
+    }
+
+    /**
+     * Adds or replaces one team. On a cold cache this doesn't make the cache available for list
+     * reads, since the other teams are still unknown.
+     */
+    synchronized void put(@NonNull Team team) {
+        Map<String, Entry> entries = new LinkedHashMap<>(mSnapshot.mEntries);
+        entries.put(team.getId(), newEntry(team, mTicker.read()));
+        publish(entries, mSnapshot.mComplete, mSnapshot.mLoadedAt);
+    }
+
+    /**
+     * Removes one team. An over capacity cache may fit the remaining teams, so the next list read
+     * tries to refill it.
+     */
+    synchronized void remove(@NonNull String teamId) {
+        mOverCapacity = false;
+        if (!mSnapshot.mEntries.containsKey(teamId)) {
+            return;
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>(mSnapshot.mEntries);
+        entries.remove(teamId);
+        publish(entries, mSnapshot.mComplete, mSnapshot.mLoadedAt);
+    }
+
+    synchronized void removeChampions() {
+        mOverCapacity = false;
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Entry entry : mSnapshot.mEntries.values()) {
+            if (!entry.mTeam.isChampion()) {
+                entries.put(entry.mTeam.getId(), entry);
+            }
+        }
+        publish(entries, mSnapshot.mComplete, mSnapshot.mLoadedAt);
+    }
+
+    /**
+     * Empties the cache. Unlike a cold cache, an emptied one is complete: there are no teams.
+     */
+    synchronized void clear() {
+        mOverCapacity = false;
+        publish(Collections.<String, Entry>emptyMap(), true, mTicker.read());
+    }
+
+    /**
+     * Drops every team, leaving the cache cold until the next full refresh.
+     */
+    synchronized void invalidate() {
+        mSnapshot = new Snapshot(ImmutableMap.<String, Entry>of(), false, mTicker.read());
+    }
+
+    private Entry newEntry(Team team, long now) {
+        return new Entry(team, mPolicy.weigh(team), now);
+    }
+
+    /**
+     * Publishes {@code entries} as the new snapshot, evicting the least recently used teams first
+     * if they weigh too much.
+     *
+     * @return true if teams were evicted
+     */
+    private boolean publish(Map<String, Entry> entries, boolean complete, long loadedAt) {
+        long weight = 0;
+        for (Entry entry : entries.values()) {
+            weight += entry.mWeight;
+        }
+        if (weight > mPolicy.getMaxWeight()) {
+            List<Entry> byAccess = new ArrayList<>(entries.values());
+            Collections.sort(byAccess, LEAST_RECENTLY_USED_FIRST);
+            int evicted = 0;
+            for (Entry entry : byAccess) {
+                if (weight <= mPolicy.getMaxWeight()) {
+                    break;
+                }
+                entries.remove(entry.mTeam.getId());
+                weight -= entry.mWeight;
+                evicted++;
+            }
+            mEvictionCount.addAndGet(evicted);
+            mSnapshot = new Snapshot(ImmutableMap.copyOf(entries), false, loadedAt);
+            return true;
+        }
+        mSnapshot = new Snapshot(ImmutableMap.copyOf(entries), complete, loadedAt);
+        return false;
+    }
+
+    /**
+     * Returns the teams of {@code teams} matching {@code filterType}.
+     */
+    @NonNull
+    static List<Team> filter(@NonNull List<Team> teams, @NonNull TeamsFilterType filterType) {
+        if (filterType == TeamsFilterType.ALL_TEAMS) {
+            return teams;
+        }
+        boolean champion = filterType == TeamsFilterType.TOP_TEAMS;
+        ImmutableList.Builder<Team> builder = ImmutableList.builder();
+        for (Team team : teams) {
+            if (team.isChampion() == champion) {
+                builder.add(team);
+            }
+        }
+        return builder.build();
+    }
+
+    private static final Comparator<Entry> LEAST_RECENTLY_USED_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            long diff = lhs.mAccessedAt - rhs.mAccessedAt;
+            return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+        }
+    };
+
+    /**
+     * A cached team. Entries are shared between snapshots, so a read recorded on one is seen by
+     * the next.
+     */
+    private static final class Entry {
+
+        final Team mTeam;
+
+        final int mWeight;
+
+        final long mWrittenAt;
+
+        volatile long mAccessedAt;
+
+        Entry(Team team, int weight, long writtenAt) {
+            mTeam = team;
+            mWeight = weight;
+            mWrittenAt = writtenAt;
+            mAccessedAt = writtenAt;
+        }
+    }
+
+    /**
+     * An immutable, ordered view of the cached teams. The lists are built on first use and kept
+     * with the snapshot, so repeated reads return the same list.
+     */
+    static final class Snapshot {
+
+        private final ImmutableMap<String, Entry> mEntries;
+
+        private final boolean mComplete;
+
+        private final long mLoadedAt;
+
+        // Built lazily. Racing threads build equal lists, so a lost write is harmless.
+        private volatile List<Team> mAllTeams;
+
+        private volatile List<Team> mChampionTeams;
+
+        private volatile List<Team> mNormalTeams;
+
+        private Snapshot(ImmutableMap<String, Entry> entries, boolean complete, long loadedAt) {
+            mEntries = entries;
+            mComplete = complete;
+            mLoadedAt = loadedAt;
+        }
+
+        int size() {
+            return mEntries.size();
+        }
+
+        @NonNull
+        List<Team> getTeams(@NonNull TeamsFilterType filterType) {
+            if (mAllTeams == null) {
+                ImmutableList.Builder<Team> builder = ImmutableList.builder();
+                for (Entry entry : mEntries.values()) {
+                    builder.add(entry.mTeam);
+                }
+                mAllTeams = builder.build();
+            }
+            switch (filterType) {
+                case TOP_TEAMS:
+                    if (mChampionTeams == null) {
+                        mChampionTeams = filter(mAllTeams, filterType);
+                    }
+                    return mChampionTeams;
+                case NORMAL_TEAMS:
+                    if (mNormalTeams == null) {
+                        mNormalTeams = filter(mAllTeams, filterType);
+                    }
+                    return mNormalTeams;
+                default:
+                    return mAllTeams;
+            }
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package ir.adicom.app.soccerinfomvp.data.source;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.List;
 
 import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
 
 /**
  * Main entry point for accessing teams data.
  * <p>
  * For simplicity, only getTeams() and getTeam() have callbacks. Consider adding callbacks to other
  * methods to inform the user of network/database errors or successful operations.
- * For example, when a new team is created, it's synchronously stored in cache but usually every
- * operation on database or network should be executed in a different thread.
+ * For example, when a new team is created, it's synchronously stored in cache while the database
+ * and network writes run in the background.
+ * <p>
+ * Implementations do their work off the calling thread and deliver callbacks on the main thread.
  */
 public interface TeamsDataSource {
 
@@ -30,12 +36,85 @@ public interface TeamsDataSource {
         void onDataNotAvailable();
     }
 
+    interface LoadTeamChangesCallback {
+
+        void onTeamChangesLoaded(TeamChanges changes);
+
+        void onDataNotAvailable();
+    }
+
+    interface GetSyncVersionCallback {
+
+        void onSyncVersionLoaded(long version);
+    }
+
+    interface PushTeamMutationsCallback {
+
+        void onTeamMutationsPushed();
+
+        void onPushFailed();
+    }
+
     void getTeams(@NonNull LoadTeamsCallback callback);
 
+    /**
+     * Gets only the teams matching {@code filterType}, letting the data source do the filtering.
+     */
+    void getTeams(@NonNull TeamsFilterType filterType, @NonNull LoadTeamsCallback callback);
+
+    /**
+     * Gets one page of the teams matching {@code filterType}, ordered by id.
+     *
+     * @param afterTeamId id of the last team of the previous page, or null for the first page
+     * @param pageSize    maximum number of teams in the page
+     */
+    void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                      int pageSize, @NonNull LoadTeamsCallback callback);
+
+    /**
+     * Gets one page of the teams matching {@code filterType} with a word starting with each word
+     * of {@code query}, in their title or description. Best matches first.
+     *
+     * @param offset   number of matching teams before the page
+     * @param pageSize maximum number of teams in the page
+     */
+    void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType, int offset,
+                     int pageSize, @NonNull LoadTeamsCallback callback);
+
     void getTeam(@NonNull String teamId, @NonNull GetTeamCallback callback);
 
+    /**
+     * Gets the changes made after {@code sinceVersion}, or a full snapshot if that version is too
+     * old.
+     *
+     * @param sinceVersion version the caller is up to date with, or
+     *                     {@link TeamChanges#NO_VERSION}
+     */
+    void getTeamChanges(long sinceVersion, @NonNull LoadTeamChangesCallback callback);
+
+    /**
+     * Gets the version of the last {@link TeamChanges} applied to this data source.
+     */
+    void getSyncVersion(@NonNull GetSyncVersionCallback callback);
+
+    /**
+     * Applies {@code changes} and records their version, all in one write.
+     */
+    void applyTeamChanges(@NonNull TeamChanges changes);
+
+    /**
+     * Applies {@code mutations}, in order, as one batch.
+     */
+    void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                           @NonNull PushTeamMutationsCallback callback);
+
     void saveTeam(@NonNull Team team);
 
+    /**
+     * Replaces every stored team with {@code teams} in a single bulk write.
+     */
+    void replaceAllTeams(@NonNull List<Team> teams);
+
     void championTeam(@NonNull Team team);
 
     void championTeam(@NonNull String teamId);
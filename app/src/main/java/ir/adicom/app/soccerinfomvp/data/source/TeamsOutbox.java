@@ -0,0 +1,47 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+
+/**
+ * Durable queue of the {@link TeamMutation}s not sent to the backend yet.
+ * <p>
+ * Implementations do their work off the calling thread and deliver callbacks on the main thread.
+ */
+public interface TeamsOutbox {
+
+    interface LoadTeamMutationsCallback {
+
+        /**
+         * @param mutations the pending mutations in the order they were made, empty if none
+         */
+        void onTeamMutationsLoaded(List<TeamMutation> mutations);
+    }
+
+    /**
+     * Applies {@code mutations} to the stored teams and queues them, in one transaction. A pending
+     * mutation made obsolete by a new one is merged with it or dropped, e.g. marking a team
+     * champion and then normal again leaves nothing to send.
+     */
+    void enqueue(@NonNull List<TeamMutation> mutations);
+
+    /**
+     * Gets up to {@code limit} of the oldest pending mutations and marks them in flight. Mutations
+     * in flight are never merged with newer ones.
+     */
+    void getPendingMutations(int limit, @NonNull LoadTeamMutationsCallback callback);
+
+    /**
+     * Removes mutations the backend accepted. They must be the ones last returned by
+     * {@link #getPendingMutations(int, LoadTeamMutationsCallback)}.
+     */
+    void removeMutations(@NonNull List<TeamMutation> mutations);
+
+    /**
+     * Puts the mutations in flight back to pending after a failed send.
+     */
+    void releaseMutations();
+}
@@ -0,0 +1,471 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Finds the teams in memory whose list title has a word starting with each word typed, for
+ * filtering the list as the user types.
+ * <p>
+ * Every word of every title is kept {@link #normalize(String) normalized} in a sorted array, so a
+ * lookup is a binary search followed by a scan of the words sharing the prefix. The arrays are
+ * built from the teams of {@code source} on the first lookup after {@link #invalidate()}, then
+ * patched by each write, without going back to the source.
+ * <p>
+ * Lookups read the last arrays published and never wait for writers. Writers are serialized on
+ * this object.
+ */
+final class TeamsPrefixIndex {
+
+    /**
+     * Length of the start of the list title indexed.
+     */
+    private static final int MAX_TITLE_LENGTH = 128;
+
+    private static final char TATWEEL = '\u0640';
+
+    private final Supplier<? extends Collection<Team>> mSource;
+
+    /**
+     * The index, or null until the next lookup builds it from the source.
+     */
+    private volatile Index mIndex;
+
+    /**
+     * Normalized list title of each team indexed, by id, to find its words when it changes. Only
+     * used by writers.
+     */
+    private Map<String, String> mTitles;
+
+    /**
+     * Incremented by each write, so a build racing with a write isn't published.
+     */
+    private int mVersion;
+
+    /**
+     * @param source supplies the teams to index when the index has to be built
+     */
+    TeamsPrefixIndex(@NonNull Supplier<? extends Collection<Team>> source) {
+        mSource = checkNotNull(source);
+    }
+
+    /**
+     * Returns up to {@code limit} teams matching {@code filterType} with, for each word of
+     * {@code query}, a word of their list title starting with it. Teams come in the order of
+     * their words matching the longest word typed. Returns an empty list if {@code query} has
+     * no words.
+     * <p>
+     * The first lookup after {@link #invalidate()} builds the index, so call it off the main
+     * thread.
+     */
+    @NonNull
+    List<Team> search(@NonNull String query, @NonNull TeamsFilterType filterType, int limit) {
+        checkNotNull(filterType);
+        checkArgument(limit > 0, "limit must be positive");
+        String normalized = normalize(checkNotNull(query));
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] words = normalized.split(" ");
+        String probe = words[0];
+        String[] others = new String[words.length - 1];
+        int count = 0;
+        for (String word : words) {
+            if (word.length() > probe.length()) {
+                probe = word;
+            }
+        }
+        for (String word : words) {
+            if (word != probe) {
+                others[count++] = ' ' + word;
+            }
+        }
+
+        Index index = index();
+        List<Team> found = new ArrayList<>();
+        Set<String> foundIds = new HashSet<>();
+        for (int i = index.lowerBound(probe); i < index.mWords.length
+                && index.mWords[i].startsWith(probe) && found.size() < limit; i++) {
+            Team team = index.mTeams[i];
+            if (filterType.matches(team) && hasPrefixes(index.mTitles[i], others, count)
+                    && foundIds.add(team.getId())) {
+                found.add(team);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drops the index. The next lookup builds it again from the source.
+     */
+    synchronized void invalidate() {
+        mVersion++;
+        mIndex = null;
+        mTitles = null;
+    }
+
+    /**
+     * Indexes {@code team}, in place of the team with the same id if there is one.
+     */
+    synchronized void put(@NonNull Team team) {
+        checkNotNull(team);
+        replace(Collections.singleton(team.getId()), Collections.singletonList(team));
+    }
+
+    synchronized void remove(@NonNull String teamId) {
+        checkNotNull(teamId);
+        replace(Collections.singleton(teamId), Collections.<Team>emptyList());
+    }
+
+    synchronized void removeChampions() {
+        mVersion++;
+        Index index = mIndex;
+        if (index == null) {
+            return;
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < index.mTeams.length; i++) {
+            if (index.mTeams[i].isChampion()) {
+                positions.add(i);
+                mTitles.remove(index.mTeams[i].getId());
+            }
+        }
+        mIndex = index.splice(positions, Collections.<Entry>emptyList());
+    }
+
+    /**
+     * Applies a delta in place. A full snapshot drops the index instead.
+     */
+    synchronized void applyChanges(@NonNull TeamChanges changes) {
+        if (checkNotNull(changes).isFullSnapshot()) {
+            invalidate();
+            return;
+        }
+        Set<String> replaced = new HashSet<>(changes.getDeletedTeamIds());
+        for (Team team : changes.getUpdatedTeams()) {
+            replaced.add(team.getId());
+        }
+        replace(replaced, changes.getUpdatedTeams());
+    }
+
+    /**
+     * Drops the words of the teams in {@code removedIds}, then adds those of {@code added}. Only
+     * counts the write if there is no index yet: the build will read it from the source.
+     */
+    private void replace(Collection<String> removedIds, Collection<Team> added) {
+        mVersion++;
+        Index index = mIndex;
+        if (index == null) {
+            return;
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (String teamId : removedIds) {
+            String title = mTitles.remove(teamId);
+            if (title != null) {
+                index.addPositions(teamId, title, positions);
+            }
+        }
+        Collections.sort(positions);
+        List<Entry> entries = new ArrayList<>(added.size() * 2);
+        for (Team team : added) {
+            addEntries(team, entries, mTitles);
+        }
+        Collections.sort(entries);
+        mIndex = index.splice(positions, entries);
+    }
+
+    private Index index() {
+        Index index = mIndex;
+        if (index != null) {
+            return index;
+        }
+        int version;
+        synchronized (this) {
+            version = mVersion;
+        }
+        // Built without holding the lock, so writers on the main thread don't wait for it.
+        Map<String, String> titles = new HashMap<>();
+        List<Entry> entries = new ArrayList<>();
+        for (Team team : mSource.get()) {
+            addEntries(team, entries, titles);
+        }
+        Collections.sort(entries);
+        index = Index.EMPTY.splice(Collections.<Integer>emptyList(), entries);
+        synchronized (this) {
+            if (mVersion == version) {
+                mIndex = index;
+                mTitles = titles;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Adds an entry to {@code entries} for each word of the list title of {@code team}, and
+     * keeps the normalized title in {@code titles}.
+     */
+    private static void addEntries(Team team, List<Entry> entries, Map<String, String> titles) {
+        String title = Strings.nullToEmpty(team.getTitleForList());
+        // Teams without a title are listed by their description, only its start is shown.
+        title = normalize(title.substring(0, Math.min(title.length(), MAX_TITLE_LENGTH)));
+        if (title.isEmpty()) {
+            return;
+        }
+        titles.put(team.getId(), title);
+        for (String word : title.split(" ")) {
+            entries.add(new Entry(word, title, team));
+        }
+    }
+
+    /**
+     * Returns true if {@code title} has a word starting with each of the first {@code count}
+     * entries of {@code spacedWords}, each a word with a leading space.
+     */
+    private static boolean hasPrefixes(String title, String[] spacedWords, int count) {
+        for (int i = 0; i < count; i++) {
+            String spacedWord = spacedWords[i];
+            if (!title.regionMatches(0, spacedWord, 1, spacedWord.length() - 1)
+                    && !title.contains(spacedWord)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the words of {@code text} in a form that ignores how they were typed, separated by
+     * single spaces:
+     * <ul>
+     * <li>compatibility forms, such as Arabic presentation forms or full-width Latin, are
+     * decomposed, and diacritics, tatweel and joiners are dropped</li>
+     * <li>letters are case folded</li>
+     * <li>the Arabic forms of yeh, kaf, teh marbuta and alef are written as the Persian letters
+     * they are typed with, and hamza seats as their bare letter</li>
+     * <li>digits of any script are written as ASCII digits</li>
+     * </ul>
+     * Anything else than a letter or a digit separates words.
+     */
+    @VisibleForTesting
+    @NonNull
+    static String normalize(@NonNull String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean separated = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int c = decomposed.codePointAt(i);
+            i += Character.charCount(c);
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+                    || type == Character.FORMAT || c == TATWEEL) {
+                continue;
+            }
+            if (!Character.isLetterOrDigit(c)) {
+                separated = true;
+                continue;
+            }
+            if (separated && normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            separated = false;
+            normalized.appendCodePoint(fold(c));
+        }
+        return normalized.toString();
+    }
+
+    private static int fold(int c) {
+        if (Character.getType(c) == Character.DECIMAL_DIGIT_NUMBER) {
+            return '0' + Character.digit(c, 10);
+        }
+        switch (c) {
+            case '\u064a': // Arabic yeh
+            case '\u0649': // alef maksura
+                return '\u06cc';
+            case '\u0643': // Arabic kaf
+                return '\u06a9';
+            case '\u0629': // teh marbuta
+            case '\u06d5': // ae, left by heh with yeh above
+                return '\u0647';
+            case '\u0671': // alef wasla
+                return '\u0627';
+            default:
+                return Character.toLowerCase(Character.toUpperCase(c));
+        }
+    }
+
+    /**
+     * Immutable index: entry {@code i} is a word of the normalized title {@code mTitles[i]} of
+     * {@code mTeams[i]}. Entries are sorted by word, then title, then team id.
+     */
+    private static final class Index {
+
+        static final Index EMPTY = new Index(new String[0], new String[0], new Team[0]);
+
+        final String[] mWords;
+
+        final String[] mTitles;
+
+        final Team[] mTeams;
+
+        private Index(String[] words, String[] titles, Team[] teams) {
+            mWords = words;
+            mTitles = titles;
+            mTeams = teams;
+        }
+
+        /**
+         * Returns this index without the entries at {@code removed}, in ascending order, and with
+         * {@code added}, sorted. Copies the entries in between by blocks, so it costs a copy of
+         * the arrays and a binary search per entry added.
+         */
+        Index splice(List<Integer> removed, List<Entry> added) {
+            int size = mWords.length - removed.size() + added.size();
+            String[] words = new String[size];
+            String[] titles = new String[size];
+            Team[] teams = new Team[size];
+            int from = 0;
+            int to = 0;
+            int nextRemoved = 0;
+            int nextAdded = 0;
+            while (true) {
+                int removeAt = nextRemoved < removed.size()
+                        ? removed.get(nextRemoved) : mWords.length;
+                int addAt = nextAdded < added.size()
+                        ? lowerBound(added.get(nextAdded)) : mWords.length;
+                int end = Math.min(removeAt, addAt);
+                System.arraycopy(mWords, from, words, to, end - from);
+                System.arraycopy(mTitles, from, titles, to, end - from);
+                System.arraycopy(mTeams, from, teams, to, end - from);
+                to += end - from;
+                from = end;
+                if (nextAdded < added.size() && addAt == from) {
+                    added.get(nextAdded++).copyTo(words, titles, teams, to++);
+                } else if (nextRemoved < removed.size() && removeAt == from) {
+                    nextRemoved++;
+                    from++;
+                } else {
+                    return new Index(words, titles, teams);
+                }
+            }
+        }
+
+        /**
+         * Adds the positions of the entries of the team {@code teamId}, titled {@code title}, to
+         * {@code positions}.
+         */
+        void addPositions(String teamId, String title, List<Integer> positions) {
+            Set<String> words = new HashSet<>(Arrays.asList(title.split(" ")));
+            for (String word : words) {
+                for (int i = lowerBound(new Entry(word, title, teamId)); i < mWords.length
+                        && mWords[i].equals(word) && mTitles[i].equals(title)
+                        && mTeams[i].getId().equals(teamId); i++) {
+                    positions.add(i);
+                }
+            }
+        }
+
+        /**
+         * Returns the position of the first word not less than {@code word}.
+         */
+        int lowerBound(String word) {
+            int low = 0;
+            int high = mWords.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (mWords[middle].compareTo(word) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the position of the first entry not less than {@code entry}.
+         */
+        private int lowerBound(Entry entry) {
+            int low = 0;
+            int high = mWords.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (entry.compareTo(mWords[middle], mTitles[middle],
+                        mTeams[middle].getId()) > 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        final String mWord;
+
+        final String mTitle;
+
+        final String mTeamId;
+
+        /**
+         * The team, or null for an entry only used to find the position of one.
+         */
+        @Nullable
+        final Team mTeam;
+
+        Entry(String word, String title, Team team) {
+            mWord = word;
+            mTitle = title;
+            mTeamId = team.getId();
+            mTeam = team;
+        }
+
+        Entry(String word, String title, String teamId) {
+            mWord = word;
+            mTitle = title;
+            mTeamId = teamId;
+            mTeam = null;
+        }
+
+        void copyTo(String[] words, String[] titles, Team[] teams, int position) {
+            words[position] = mWord;
+            titles[position] = mTitle;
+            teams[position] = mTeam;
+        }
+
+        int compareTo(String word, String title, String teamId) {
+            int result = mWord.compareTo(word);
+            if (result == 0) {
+                result = mTitle.compareTo(title);
+            }
+            return result != 0 ? result : mTeamId.compareTo(teamId);
+        }
+
+        @Override
+        public int compareTo(@NonNull Entry other) {
+            return compareTo(other.mWord, other.mTitle, other.mTeamId);
+        }
+    }
+}
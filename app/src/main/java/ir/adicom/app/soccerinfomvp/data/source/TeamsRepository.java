@@ -1,29 +1,94 @@
 package ir.adicom.app.soccerinfomvp.data.source;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+import ir.adicom.app.soccerinfomvp.util.tracing.Span;
+import ir.adicom.app.soccerinfomvp.util.tracing.Tracing;
 
 /**
  * Concrete implementation to load teams from the data sources into a cache.
  * <p>
- * For simplicity, this implements a dumb synchronisation between locally persisted data and data
- * obtained from the server, by using the remote data source only if the local database doesn't
- * exist or is empty.
+ * The remote data source is used only if the local database doesn't exist or is empty, or when
+ * a refresh is forced. Syncs are incremental: only the {@link TeamChanges} made since the last
+ * synced version are downloaded and applied, with a full snapshot as the fallback.
+ * <p>
+ * The data sources do their I/O on background executors and call back on the main thread. The
+ * in-memory {@link TeamsCache} is safe to read from any thread. It is sized and expired following
+ * a {@link CachePolicy}: expired teams are served while a refresh runs in the background.
  */
 public class TeamsRepository implements TeamsDataSource {
 
+    /**
+     * Callback of {@link #revalidateTeams(TeamsFilterType, int, LoadToken, RevalidateTeamsCallback)}:
+     * {@link #onTeamsLoaded(List)} brings the stored teams, then
+     * {@link #onTeamsChanged(TeamChanges)} brings what the network changed, if anything.
+     */
+    public interface RevalidateTeamsCallback extends LoadTeamsCallback {
+
+        void onTeamsChanged(TeamChanges changes);
+    }
+
+    /**
+     * Observer of the changes made through this repository, see
+     * {@link #addTeamsObserver(TeamsObserver)}.
+     */
+    public interface TeamsObserver {
+
+        /**
+         * Called on the main thread after each change, with the teams written and deleted. A full
+         * snapshot replaces every team. Versions increase by one per change.
+         */
+        void onTeamsChanged(TeamChanges changes);
+    }
+
     private static TeamsRepository INSTANCE = null;
 
+    private static final String REMOTE_SYNC_KEY = "sync";
+
+    private static final long UNKNOWN_VERSION = -1;
+
+    private static final LoadTeamsCallback IGNORE_TEAMS = new LoadTeamsCallback() {
+        @Override
+        public void onTeamsLoaded(List<Team> teams) {
+        }
+
+        @Override
+        public void onDataNotAvailable() {
+        }
+    };
+
+    private static final GetTeamCallback IGNORE_TEAM = new GetTeamCallback() {
+        @Override
+        public void onTeamLoaded(Team team) {
+        }
+
+        @Override
+        public void onDataNotAvailable() {
+        }
+    };
+
     private final TeamsDataSource mTeamsRemoteDataSource;
 
     private final TeamsDataSource mTeamsLocalDataSource;
@@ -31,19 +96,88 @@ public class TeamsRepository implements TeamsDataSource {
     /**
      * This variable has package local visibility so it can be accessed from tests.
      */
-    Map<String, Team> mCachedTeams;
+    final TeamsCache mCache;
+
+    /**
+     * Words of the list titles of the cached teams, for {@link #lookupTeams}. Built from the cache
+     * on the first lookup after a refresh and kept up to date by each write. Teams the cache
+     * evicts afterwards stay in it until the next refresh.
+     */
+    private final TeamsPrefixIndex mPrefixIndex;
+
+    /**
+     * Version of the last changes synced from the remote data source, read from the local data
+     * source on first sync.
+     */
+    private volatile long mSyncVersion = UNKNOWN_VERSION;
 
     /**
-     * Marks the cache as invalid, to force an update the next time data is requested. This variable
-     * has package local visibility so it can be accessed from tests.
+     * Write-behind queue for the changes made through this repository, or null if they are sent
+     * to the remote data source right away.
      */
-    boolean mCacheIsDirty = false;
+    @Nullable
+    private final TeamsOutbox mTeamsOutbox;
+
+    @Nullable
+    private final OutboxFlusher mOutboxFlusher;
+
+    /**
+     * Set when a change is queued while a sync is in flight. The changes pulled by that sync may
+     * not include it, so the cache can't trust them. Only used on the main thread.
+     */
+    private boolean mQueuedDuringSync;
+
+    /**
+     * Observers of the change stream. Only used on the main thread.
+     */
+    private final List<TeamsObserver> mTeamsObservers = new ArrayList<>();
+
+    /**
+     * Version of the last change published to {@link #mTeamsObservers}. Only used on the main
+     * thread.
+     */
+    private long mChangeVersion = TeamChanges.NO_VERSION;
+
+    /**
+     * List loads in flight: filtered loads and page loads. Concurrent identical
+     * requests share one underlying fetch.
+     */
+    private final SingleFlight<String, LoadTeamsCallback> mTeamsLoads = new SingleFlight<>();
+
+    /**
+     * The sync with the network in flight, under {@link #REMOTE_SYNC_KEY}.
+     */
+    private final SingleFlight<String, LoadTeamChangesCallback> mSyncs = new SingleFlight<>();
+
+    /**
+     * Single team loads in flight, keyed by team id.
+     */
+    private final SingleFlight<String, GetTeamCallback> mTeamLoads = new SingleFlight<>();
 
     // Prevent direct instantiation.
     private TeamsRepository(@NonNull TeamsDataSource teamsRemoteDataSource,
-                            @NonNull TeamsDataSource teamsLocalDataSource) {
+                            @NonNull TeamsDataSource teamsLocalDataSource,
+                            @NonNull CachePolicy cachePolicy,
+                            @Nullable TeamsOutbox teamsOutbox) {
         mTeamsRemoteDataSource = checkNotNull(teamsRemoteDataSource);
         mTeamsLocalDataSource = checkNotNull(teamsLocalDataSource);
+        mCache = new TeamsCache(checkNotNull(cachePolicy), Ticker.systemTicker());
+        mPrefixIndex = new TeamsPrefixIndex(new Supplier<List<Team>>() {
+            @Override
+            public List<Team> get() {
+                return mCache.snapshot().getTeams(TeamsFilterType.ALL_TEAMS);
+            }
+        });
+        mTeamsOutbox = teamsOutbox;
+        if (teamsOutbox != null) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("outbox-flusher").setDaemon(true).build());
+            mOutboxFlusher = new OutboxFlusher(teamsOutbox, teamsRemoteDataSource, scheduler);
+            // Send whatever an earlier run left in the outbox.
+            mOutboxFlusher.requestFlush();
+        } else {
+            mOutboxFlusher = null;
+        }
     }
 
     /**
@@ -55,8 +189,43 @@ public class TeamsRepository implements TeamsDataSource {
      */
     public static TeamsRepository getInstance(TeamsDataSource teamsRemoteDataSource,
                                               TeamsDataSource teamsLocalDataSource) {
+        return getInstance(teamsRemoteDataSource, teamsLocalDataSource, CachePolicy.unbounded());
+    }
+
+    /**
+     * Returns the single instance of this class, creating it if necessary.
+     *
+     * @param teamsRemoteDataSource the backend data source
+     * @param teamsLocalDataSource  the device storage data source
+     * @param cachePolicy           sizing and expiry of the in-memory cache, used only when the
+     *                              instance is created
+     * @return the {@link TeamsRepository} instance
+     */
+    public static TeamsRepository getInstance(TeamsDataSource teamsRemoteDataSource,
+                                              TeamsDataSource teamsLocalDataSource,
+                                              CachePolicy cachePolicy) {
+        return getInstance(teamsRemoteDataSource, teamsLocalDataSource, cachePolicy, null);
+    }
+
+    /**
+     * Returns the single instance of this class, creating it if necessary.
+     *
+     * @param teamsRemoteDataSource the backend data source
+     * @param teamsLocalDataSource  the device storage data source
+     * @param cachePolicy           sizing and expiry of the in-memory cache, used only when the
+     *                              instance is created
+     * @param teamsOutbox           queue of the changes not sent to the backend yet, or null to
+     *                              send every change right away. Used only when the instance is
+     *                              created
+     * @return the {@link TeamsRepository} instance
+     */
+    public static TeamsRepository getInstance(TeamsDataSource teamsRemoteDataSource,
+                                              TeamsDataSource teamsLocalDataSource,
+                                              CachePolicy cachePolicy,
+                                              @Nullable TeamsOutbox teamsOutbox) {
         if (INSTANCE == null) {
-            INSTANCE = new TeamsRepository(teamsRemoteDataSource, teamsLocalDataSource);
+            INSTANCE = new TeamsRepository(teamsRemoteDataSource, teamsLocalDataSource,
+                    cachePolicy, teamsOutbox);
         }
         return INSTANCE;
     }
@@ -70,68 +239,400 @@ public class TeamsRepository implements TeamsDataSource {
     }
 
     /**
-     * Gets teams from cache, local data source (SQLite) or remote data source, whichever is
-     * available first.
+     * Returns the hit, miss and eviction counts of the in-memory cache.
+     */
+    @NonNull
+    public CacheStats getCacheStats() {
+        return mCache.stats();
+    }
+
+    /**
+     * Publishes every change made through this repository to {@code observer} from now on: teams
+     * saved, marked champion or normal, and deleted. Changes pulled from the network are not
+     * included; {@link #revalidateTeams(TeamsFilterType, int, LoadToken, RevalidateTeamsCallback)}
+     * delivers those. Must be called on the main thread.
+     */
+    public void addTeamsObserver(@NonNull TeamsObserver observer) {
+        if (!mTeamsObservers.contains(checkNotNull(observer))) {
+            mTeamsObservers.add(observer);
+        }
+    }
+
+    /**
+     * Stops publishing changes to {@code observer}. Can be called while it is notified. Must be
+     * called on the main thread.
+     */
+    public void removeTeamsObserver(@NonNull TeamsObserver observer) {
+        mTeamsObservers.remove(checkNotNull(observer));
+    }
+
+    /**
+     * Returns the version of the last change published, or {@link TeamChanges#NO_VERSION}.
+     */
+    public long getChangeVersion() {
+        return mChangeVersion;
+    }
+
+    /**
+     * Reads the sync version and every stored team from the local data source, filling the cache
+     * with them, so the first load doesn't open the database or wait on it. The network isn't
+     * used. The cache is left alone if anything changed it in the meantime.
+     * <p>
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired if nothing is stored.
+     */
+    public void warmUp(@NonNull final LoadTeamsCallback callback) {
+        checkNotNull(callback);
+        getSyncVersion(new GetSyncVersionCallback() {
+            @Override
+            public void onSyncVersionLoaded(long version) {
+            }
+        });
+        final TeamsCache.Snapshot snapshot = mCache.snapshot();
+        mTeamsLocalDataSource.getTeams(new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                if (mCache.snapshot() == snapshot && !mCache.isDirty()) {
+                    cacheLoadedTeams(teams);
+                    callback.onTeamsLoaded(handOver(teams, TeamsFilterType.ALL_TEAMS));
+                } else {
+                    callback.onTeamsLoaded(teams);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                callback.onDataNotAvailable();
+            }
+        });
+    }
+
+    /**
+     * Gets all the teams. Same as {@link #getTeams(TeamsFilterType, LoadTeamsCallback)} with
+     * {@link TeamsFilterType#ALL_TEAMS}.
+     */
+    @Override
+    public void getTeams(@NonNull final LoadTeamsCallback callback) {
+        getTeams(TeamsFilterType.ALL_TEAMS, callback);
+    }
+
+    /**
+     * Gets the teams matching {@code filterType} from cache, local data source (SQLite) or remote
+     * data source, whichever is available first.
+     * <p>
+     * A filtered request on a cold cache is answered by a filtered query on the local data source
+     * so only the matching rows are read. The cache is only warmed by unfiltered loads.
      * <p>
      * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired if all data sources fail to
      * get the data.
      */
     @Override
-    public void getTeams(@NonNull final LoadTeamsCallback callback) {
+    public void getTeams(@NonNull TeamsFilterType filterType,
+                         @NonNull LoadTeamsCallback callback) {
+        checkNotNull(filterType);
         checkNotNull(callback);
 
+        Span span = Tracing.startSpan("TeamsRepository.getTeams");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            loadTeams(filterType, ending(span, callback));
+        } finally {
+            scope.close();
+        }
+    }
+
+    private void loadTeams(@NonNull final TeamsFilterType filterType,
+                           @NonNull LoadTeamsCallback callback) {
         // Respond immediately with cache if available and not dirty
-        if (mCachedTeams != null && !mCacheIsDirty) {
-            callback.onTeamsLoaded(new ArrayList<>(mCachedTeams.values()));
+        List<Team> cachedTeams = mCache.getTeams(filterType);
+        if (cachedTeams != null) {
+            if (mCache.isExpired()) {
+                syncFromRemoteDataSource(IGNORE_TEAMS);
+            }
+            callback.onTeamsLoaded(cachedTeams);
             return;
         }
 
-        if (mCacheIsDirty) {
+        // Only the first of several concurrent identical requests does the work.
+        boolean dirty = mCache.isDirty();
+        String key = "teams/" + filterType + "/" + dirty;
+        SingleFlight.Flight<LoadTeamsCallback> flight = mTeamsLoads.join(key, callback);
+        if (flight == null) {
+            return;
+        }
+        callback = landing(key, flight);
+
+        if (dirty) {
             // If the cache is dirty we need to fetch new data from the network.
-            getTeamsFromRemoteDataSource(callback);
+            getTeamsFromRemoteDataSource(filterType, callback);
+        } else if (filterType == TeamsFilterType.ALL_TEAMS) {
+            getTeamsFromLocalDataSource(filterType, callback);
         } else {
-            // Query the local storage if available. If not, query the network.
-            mTeamsLocalDataSource.getTeams(new LoadTeamsCallback() {
+            final LoadTeamsCallback landingCallback = callback;
+            mTeamsLocalDataSource.getTeams(filterType, new LoadTeamsCallback() {
+                @Override
+                public void onTeamsLoaded(List<Team> teams) {
+                    landingCallback.onTeamsLoaded(teams);
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    // Nothing matched, which may just mean the table is empty. Load everything
+                    // so an empty database still falls back to the network.
+                    getTeamsFromLocalDataSource(filterType, landingCallback);
+                }
+            });
+        }
+    }
+
+    /**
+     * Same as {@link #getTeams(TeamsFilterType, LoadTeamsCallback)}, but nothing is delivered once
+     * {@code token} is cancelled.
+     */
+    public void getTeams(@NonNull TeamsFilterType filterType, @NonNull LoadToken token,
+                         @NonNull LoadTeamsCallback callback) {
+        getTeams(filterType, checkNotNull(token).guard(callback));
+    }
+
+    /**
+     * Same as {@link #getTeamsPage(TeamsFilterType, String, int, LoadTeamsCallback)}, but nothing
+     * is delivered once {@code token} is cancelled.
+     */
+    public void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                             int pageSize, @NonNull LoadToken token,
+                             @NonNull LoadTeamsCallback callback) {
+        getTeamsPage(filterType, afterTeamId, pageSize, checkNotNull(token).guard(callback));
+    }
+
+    /**
+     * Same as {@link #searchTeams(String, TeamsFilterType, int, int, LoadTeamsCallback)}, but
+     * nothing is delivered once {@code token} is cancelled, so a search replaced by the next
+     * keystroke is dropped.
+     */
+    public void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType, int offset,
+                            int pageSize, @NonNull LoadToken token,
+                            @NonNull LoadTeamsCallback callback) {
+        searchTeams(query, filterType, offset, pageSize, checkNotNull(token).guard(callback));
+    }
+
+    /**
+     * Stale-while-revalidate load of the first page: the page is read from the local data source
+     * and delivered without waiting on the network, even if the cache is dirty, while the changes
+     * made since the last sync are fetched in parallel. Those changes are delivered second, once
+     * they have been applied to the cache and the local data source.
+     * <p>
+     * Only when nothing is stored yet does the first delivery wait for the network.
+     */
+    public void revalidateTeams(@NonNull TeamsFilterType filterType, int pageSize,
+                                @NonNull LoadToken token,
+                                @NonNull RevalidateTeamsCallback callback) {
+        checkNotNull(filterType);
+        checkArgument(pageSize > 0, "pageSize must be positive");
+        final Revalidation revalidation = new Revalidation(checkNotNull(token).guard(callback));
+
+        // The span covers the first delivery; the sync goes on in its trace.
+        final Span span = Tracing.startSpan("TeamsRepository.revalidateTeams");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            syncChanges(new LoadTeamChangesCallback() {
+                @Override
+                public void onTeamChangesLoaded(TeamChanges changes) {
+                    revalidation.onChangesLoaded(changes);
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    // Keep showing the stored teams.
+                }
+            });
+            loadTeamsPage(filterType, null, pageSize, false, new LoadTeamsCallback() {
                 @Override
                 public void onTeamsLoaded(List<Team> teams) {
-                    refreshCache(teams);
-                    callback.onTeamsLoaded(new ArrayList<>(mCachedTeams.values()));
+                    span.end();
+                    revalidation.onPageLoaded(teams);
                 }
 
                 @Override
                 public void onDataNotAvailable() {
-                    getTeamsFromRemoteDataSource(callback);
+                    span.end();
+                    revalidation.onPageNotAvailable();
                 }
             });
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Gets a page of teams from the local data source. Pages are never served from the cache, so a
+     * page costs the same no matter how many teams are stored.
+     * <p>
+     * If the cache is dirty, the teams are synced from the network before the first page is read.
+     * If the first page is empty and the table turns out to be empty too, the same network sync
+     * runs.
+     * <p>
+     * Identical requests made while one is in flight share its result instead of querying again.
+     * <p>
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired past the last page, or if all
+     * data sources fail to get the data.
+     */
+    @Override
+    public void getTeamsPage(@NonNull final TeamsFilterType filterType,
+                             @Nullable final String afterTeamId, final int pageSize,
+                             @NonNull final LoadTeamsCallback callback) {
+        checkNotNull(filterType);
+        checkNotNull(callback);
+        checkArgument(pageSize > 0, "pageSize must be positive");
+
+        Span span = Tracing.startSpan("TeamsRepository.getTeamsPage");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            boolean dirty = mCache.isDirty();
+            String key = "page/" + filterType + "/" + afterTeamId + "/" + pageSize + "/" + dirty;
+            SingleFlight.Flight<LoadTeamsCallback> flight =
+                    mTeamsLoads.join(key, ending(span, callback));
+            if (flight != null) {
+                loadTeamsPage(filterType, afterTeamId, pageSize, dirty, landing(key, flight));
+            }
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} teams matching {@code filterType} whose list title has a word
+     * starting with each word of {@code query}, ignoring case, diacritics and the Arabic or Persian
+     * form of letters. Only the teams in memory are looked at, so it answers as fast as the user
+     * types; {@link #searchTeams} searches everything stored.
+     * <p>
+     * Never waits for writers. The first lookup after the cache is refreshed indexes it, so call
+     * it off the main thread.
+     */
+    @WorkerThread
+    @NonNull
+    public List<Team> lookupTeams(@NonNull String query, @NonNull TeamsFilterType filterType,
+                                  int limit) {
+        Span span = Tracing.startSpan("TeamsRepository.lookupTeams");
+        try {
+            return mPrefixIndex.search(query, filterType, limit);
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Searches the local data source only. The results aren't cached: each query is its own set of
+     * teams, and the index answers it quickly.
+     * <p>
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired if no stored team matches.
+     */
+    @Override
+    public void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType, int offset,
+                            int pageSize, @NonNull LoadTeamsCallback callback) {
+        checkNotNull(query);
+        checkNotNull(filterType);
+        checkNotNull(callback);
+        checkArgument(offset >= 0, "offset must not be negative");
+        checkArgument(pageSize > 0, "pageSize must be positive");
+
+        Span span = Tracing.startSpan("TeamsRepository.searchTeams");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            mTeamsLocalDataSource.searchTeams(query, filterType, offset, pageSize,
+                    ending(span, callback));
+        } finally {
+            scope.close();
+        }
+    }
+
+    private void loadTeamsPage(@NonNull final TeamsFilterType filterType,
+                               @Nullable final String afterTeamId, final int pageSize,
+                               boolean dirty, @NonNull final LoadTeamsCallback callback) {
+        if (dirty) {
+            getTeamsPageFromRemoteDataSource(filterType, afterTeamId, pageSize, callback);
+            return;
         }
+
+        mTeamsLocalDataSource.getTeamsPage(filterType, afterTeamId, pageSize, new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                callback.onTeamsLoaded(teams);
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                if (afterTeamId != null) {
+                    // Past the last page.
+                    callback.onDataNotAvailable();
+                    return;
+                }
+                // Probe for any row at all to tell "nothing matches" from "the table is empty".
+                mTeamsLocalDataSource.getTeamsPage(TeamsFilterType.ALL_TEAMS, null, 1,
+                        new LoadTeamsCallback() {
+                            @Override
+                            public void onTeamsLoaded(List<Team> teams) {
+                                callback.onTeamsLoaded(Collections.<Team>emptyList());
+                            }
+
+                            @Override
+                            public void onDataNotAvailable() {
+                                getTeamsPageFromRemoteDataSource(filterType, null, pageSize, callback);
+                            }
+                        });
+            }
+        });
     }
 
     @Override
     public void saveTeam(@NonNull Team team) {
         checkNotNull(team);
-        mTeamsRemoteDataSource.saveTeam(team);
-        mTeamsLocalDataSource.saveTeam(team);
+        if (mTeamsOutbox != null) {
+            queue(TeamMutation.save(team));
+        } else {
+            mTeamsRemoteDataSource.saveTeam(team);
+            mTeamsLocalDataSource.saveTeam(team);
+        }
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTeams == null) {
-            mCachedTeams = new LinkedHashMap<>();
+        cacheTeam(team);
+        publishChanges(Collections.singletonList(team), Collections.<String>emptyList());
+    }
+
+    @Override
+    public void replaceAllTeams(@NonNull List<Team> teams) {
+        checkNotNull(teams);
+        if (mTeamsOutbox != null) {
+            List<TeamMutation> mutations = new ArrayList<>(teams.size() + 1);
+            mutations.add(TeamMutation.deleteAll());
+            for (Team team : teams) {
+                mutations.add(TeamMutation.save(team));
+            }
+            queue(mutations);
+        } else {
+            mTeamsRemoteDataSource.replaceAllTeams(teams);
+            mTeamsLocalDataSource.replaceAllTeams(teams);
         }
-        mCachedTeams.put(team.getId(), team);
+
+        refreshCache(teams);
+        publishChanges(TeamChanges.fullSnapshot(++mChangeVersion, teams));
     }
 
     @Override
     public void championTeam(@NonNull Team team) {
         checkNotNull(team);
-        mTeamsRemoteDataSource.championTeam(team);
-        mTeamsLocalDataSource.championTeam(team);
+        if (mTeamsOutbox != null) {
+            queue(TeamMutation.champion(team.getId()));
+        } else {
+            // Only the id goes to the remote: the team may be a summary whose missing description
+            // must not overwrite the stored one.
+            mTeamsRemoteDataSource.championTeam(team.getId());
+            mTeamsLocalDataSource.championTeam(team);
+        }
 
-        Team championdTeam = new Team(team.getTitle(), team.getDescription(), team.getId(), true);
+        Team championdTeam = team.withChampion(true);
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTeams == null) {
-            mCachedTeams = new LinkedHashMap<>();
-        }
-        mCachedTeams.put(team.getId(), championdTeam);
+        cacheTeam(championdTeam);
+        publishChanges(Collections.singletonList(championdTeam), Collections.<String>emptyList());
     }
 
     @Override
@@ -143,16 +644,20 @@ public class TeamsRepository implements TeamsDataSource {
     @Override
     public void normalTeam(@NonNull Team team) {
         checkNotNull(team);
-        mTeamsRemoteDataSource.normalTeam(team);
-        mTeamsLocalDataSource.normalTeam(team);
+        if (mTeamsOutbox != null) {
+            queue(TeamMutation.normal(team.getId()));
+        } else {
+            // Only the id goes to the remote: the team may be a summary whose missing description
+            // must not overwrite the stored one.
+            mTeamsRemoteDataSource.normalTeam(team.getId());
+            mTeamsLocalDataSource.normalTeam(team);
+        }
 
-        Team activeTeam = new Team(team.getTitle(), team.getDescription(), team.getId());
+        Team activeTeam = team.withChampion(false);
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTeams == null) {
-            mCachedTeams = new LinkedHashMap<>();
-        }
-        mCachedTeams.put(team.getId(), activeTeam);
+        cacheTeam(activeTeam);
+        publishChanges(Collections.singletonList(activeTeam), Collections.<String>emptyList());
     }
 
     @Override
@@ -163,20 +668,20 @@ public class TeamsRepository implements TeamsDataSource {
 
     @Override
     public void clearChampionTeams() {
-        mTeamsRemoteDataSource.clearChampionTeams();
-        mTeamsLocalDataSource.clearChampionTeams();
-
-        // Do in memory cache update to keep the app UI up to date
-        if (mCachedTeams == null) {
-            mCachedTeams = new LinkedHashMap<>();
+        if (!mTeamsObservers.isEmpty()) {
+            publishClearedChampions();
         }
-        Iterator<Map.Entry<String, Team>> it = mCachedTeams.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<String, Team> entry = it.next();
-            if (entry.getValue().isChampion()) {
-                it.remove();
-            }
+        if (mTeamsOutbox != null) {
+            queue(TeamMutation.clearChampions());
+        } else {
+            mTeamsRemoteDataSource.clearChampionTeams();
+            mTeamsLocalDataSource.clearChampionTeams();
         }
+
+        // Do in memory cache update to keep the app UI up to date
+        mCache.removeChampions();
+        mPrefixIndex.removeChampions();
+        onCacheChanged();
     }
 
     /**
@@ -187,17 +692,42 @@ public class TeamsRepository implements TeamsDataSource {
      * get the data.
      */
     @Override
-    public void getTeam(@NonNull final String teamId, @NonNull final GetTeamCallback callback) {
+    public void getTeam(@NonNull final String teamId, @NonNull GetTeamCallback waitingCallback) {
         checkNotNull(teamId);
-        checkNotNull(callback);
+        checkNotNull(waitingCallback);
 
         Team cachedTeam = getTeamWithId(teamId);
 
-        // Respond immediately with cache if available
-        if (cachedTeam != null) {
-            callback.onTeamLoaded(cachedTeam);
+        // Respond immediately with cache if available. A summary read for a list lacks the
+        // description, so the full team is loaded instead.
+        if (cachedTeam != null && !cachedTeam.isSummary()) {
+            if (mCache.isExpired(teamId)) {
+                revalidateTeam(teamId);
+            }
+            waitingCallback.onTeamLoaded(cachedTeam);
+            return;
+        }
+
+        // Only the first of several concurrent requests for the same id does the work.
+        final SingleFlight.Flight<GetTeamCallback> flight = mTeamLoads.join(teamId, waitingCallback);
+        if (flight == null) {
             return;
         }
+        final GetTeamCallback callback = new GetTeamCallback() {
+            @Override
+            public void onTeamLoaded(Team team) {
+                for (GetTeamCallback landed : mTeamLoads.land(teamId, flight)) {
+                    landed.onTeamLoaded(team);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                for (GetTeamCallback landed : mTeamLoads.land(teamId, flight)) {
+                    landed.onDataNotAvailable();
+                }
+            }
+        };
 
         // Load from server/persisted if needed.
 
@@ -206,10 +736,7 @@ public class TeamsRepository implements TeamsDataSource {
             @Override
             public void onTeamLoaded(Team team) {
                 // Do in memory cache update to keep the app UI up to date
-                if (mCachedTeams == null) {
-                    mCachedTeams = new LinkedHashMap<>();
-                }
-                mCachedTeams.put(team.getId(), team);
+                cacheTeam(team);
                 callback.onTeamLoaded(team);
             }
 
@@ -219,10 +746,7 @@ public class TeamsRepository implements TeamsDataSource {
                     @Override
                     public void onTeamLoaded(Team team) {
                         // Do in memory cache update to keep the app UI up to date
-                        if (mCachedTeams == null) {
-                            mCachedTeams = new LinkedHashMap<>();
-                        }
-                        mCachedTeams.put(team.getId(), team);
+                        cacheTeam(team);
                         callback.onTeamLoaded(team);
                     }
 
@@ -235,37 +759,208 @@ public class TeamsRepository implements TeamsDataSource {
         });
     }
 
+    /**
+     * Gets the changes straight from the remote data source.
+     */
+    @Override
+    public void getTeamChanges(long sinceVersion, @NonNull LoadTeamChangesCallback callback) {
+        mTeamsRemoteDataSource.getTeamChanges(sinceVersion, checkNotNull(callback));
+    }
+
+    /**
+     * Gets the version of the last changes synced from the remote data source.
+     */
+    @Override
+    public void getSyncVersion(@NonNull final GetSyncVersionCallback callback) {
+        checkNotNull(callback);
+        long version = mSyncVersion;
+        if (version != UNKNOWN_VERSION) {
+            callback.onSyncVersionLoaded(version);
+            return;
+        }
+        mTeamsLocalDataSource.getSyncVersion(new GetSyncVersionCallback() {
+            @Override
+            public void onSyncVersionLoaded(long version) {
+                if (mSyncVersion == UNKNOWN_VERSION) {
+                    mSyncVersion = version;
+                }
+                callback.onSyncVersionLoaded(mSyncVersion);
+            }
+        });
+    }
+
+    /**
+     * Applies changes pulled from the remote data source to the cache and, in one transaction, to
+     * the local data source.
+     */
+    @Override
+    public void applyTeamChanges(@NonNull TeamChanges changes) {
+        checkNotNull(changes);
+        Span span = Tracing.startSpan("TeamsRepository.applyTeamChanges");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            mTeamsLocalDataSource.applyTeamChanges(changes);
+            mSyncVersion = changes.getVersion();
+
+            mCache.applyChanges(changes);
+            mPrefixIndex.applyChanges(changes);
+            onCacheChanged();
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+
+    /**
+     * Queues {@code mutations} in the outbox if there is one, otherwise sends them to the remote
+     * data source. The cache is left as is.
+     */
+    @Override
+    public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                  @NonNull PushTeamMutationsCallback callback) {
+        checkNotNull(mutations);
+        checkNotNull(callback);
+        if (mTeamsOutbox == null) {
+            mTeamsRemoteDataSource.pushTeamMutations(mutations, callback);
+            return;
+        }
+        queue(mutations);
+        callback.onTeamMutationsPushed();
+    }
+
     @Override
     public void refreshTeams() {
-        mCacheIsDirty = true;
+        mCache.markDirty();
     }
 
     @Override
     public void deleteAllTeams() {
-        mTeamsRemoteDataSource.deleteAllTeams();
-        mTeamsLocalDataSource.deleteAllTeams();
-
-        if (mCachedTeams == null) {
-            mCachedTeams = new LinkedHashMap<>();
+        if (mTeamsOutbox != null) {
+            queue(TeamMutation.deleteAll());
+        } else {
+            mTeamsRemoteDataSource.deleteAllTeams();
+            mTeamsLocalDataSource.deleteAllTeams();
         }
-        mCachedTeams.clear();
+
+        mCache.clear();
+        mPrefixIndex.invalidate();
+        onCacheChanged();
+        publishChanges(TeamChanges.fullSnapshot(++mChangeVersion, Collections.<Team>emptyList()));
     }
 
     @Override
     public void deleteTeam(@NonNull String teamId) {
-        mTeamsRemoteDataSource.deleteTeam(checkNotNull(teamId));
-        mTeamsLocalDataSource.deleteTeam(checkNotNull(teamId));
+        checkNotNull(teamId);
+        if (mTeamsOutbox != null) {
+            queue(TeamMutation.delete(teamId));
+        } else {
+            mTeamsRemoteDataSource.deleteTeam(teamId);
+            mTeamsLocalDataSource.deleteTeam(teamId);
+        }
+
+        mCache.remove(teamId);
+        mPrefixIndex.remove(teamId);
+        onCacheChanged();
+        publishChanges(Collections.<Team>emptyList(), Collections.singletonList(teamId));
+    }
+
+    private void getTeamsFromLocalDataSource(@NonNull final TeamsFilterType filterType,
+                                             @NonNull final LoadTeamsCallback callback) {
+        // Query the local storage if available. If not, query the network.
+        mTeamsLocalDataSource.getTeams(new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                cacheLoadedTeams(teams);
+                callback.onTeamsLoaded(handOver(teams, filterType));
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                getTeamsFromRemoteDataSource(filterType, callback);
+            }
+        });
+    }
+
+    /**
+     * Syncs every team from the network into the cache and the local data source, then reads the
+     * page locally. The page query is queued on the disk executor behind the local refresh,
+     * so it sees the new rows.
+     */
+    private void getTeamsPageFromRemoteDataSource(@NonNull final TeamsFilterType filterType,
+                                                  @Nullable final String afterTeamId,
+                                                  final int pageSize,
+                                                  @NonNull final LoadTeamsCallback callback) {
+        syncFromRemoteDataSource(new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                mTeamsLocalDataSource.getTeamsPage(filterType, afterTeamId, pageSize, new LoadTeamsCallback() {
+                    @Override
+                    public void onTeamsLoaded(List<Team> teams) {
+                        callback.onTeamsLoaded(teams);
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {
+                        // The sync succeeded, nothing else matches the filter.
+                        callback.onTeamsLoaded(Collections.<Team>emptyList());
+                    }
+                });
+            }
 
-        mCachedTeams.remove(teamId);
+            @Override
+            public void onDataNotAvailable() {
+                callback.onDataNotAvailable();
+            }
+        });
     }
 
-    private void getTeamsFromRemoteDataSource(@NonNull final LoadTeamsCallback callback) {
-        mTeamsRemoteDataSource.getTeams(new LoadTeamsCallback() {
+    private void getTeamsFromRemoteDataSource(@NonNull final TeamsFilterType filterType,
+                                              @NonNull final LoadTeamsCallback callback) {
+        syncFromRemoteDataSource(new LoadTeamsCallback() {
             @Override
             public void onTeamsLoaded(List<Team> teams) {
-                refreshCache(teams);
-                refreshLocalDataSource(teams);
-                callback.onTeamsLoaded(new ArrayList<>(mCachedTeams.values()));
+                callback.onTeamsLoaded(TeamsCache.filter(teams, filterType));
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                callback.onDataNotAvailable();
+            }
+        });
+    }
+
+    /**
+     * Brings the cache and the local data source up to date with the network, then delivers every
+     * team.
+     */
+    private void syncFromRemoteDataSource(@NonNull final LoadTeamsCallback callback) {
+        syncChanges(new LoadTeamChangesCallback() {
+            @Override
+            public void onTeamChangesLoaded(TeamChanges changes) {
+                if (changes.isFullSnapshot()) {
+                    callback.onTeamsLoaded(changes.getUpdatedTeams());
+                } else if (mCache.isAvailable()) {
+                    callback.onTeamsLoaded(mCache.snapshot().getTeams(TeamsFilterType.ALL_TEAMS));
+                } else if (callback == IGNORE_TEAMS && mCache.isOverCapacity()) {
+                    // Reading the teams back would neither fill the cache nor reach anyone.
+                    callback.onTeamsLoaded(Collections.<Team>emptyList());
+                } else {
+                    // The cache doesn't hold every team, read them back once the changes are
+                    // written. Local reads queue behind the write.
+                    mTeamsLocalDataSource.getTeams(new LoadTeamsCallback() {
+                        @Override
+                        public void onTeamsLoaded(List<Team> teams) {
+                            cacheLoadedTeams(teams);
+                            callback.onTeamsLoaded(teams);
+                        }
+
+                        @Override
+                        public void onDataNotAvailable() {
+                            // The sync succeeded, there are no teams left.
+                            callback.onTeamsLoaded(Collections.<Team>emptyList());
+                        }
+                    });
+                }
             }
 
             @Override
@@ -275,31 +970,290 @@ public class TeamsRepository implements TeamsDataSource {
         });
     }
 
+    /**
+     * Pulls the changes made since the last sync from the network and applies them to the cache
+     * and the local data source. Callers arriving while a sync is in flight wait for it instead of
+     * starting another one.
+     */
+    private void syncChanges(@NonNull LoadTeamChangesCallback callback) {
+        final SingleFlight.Flight<LoadTeamChangesCallback> flight =
+                mSyncs.join(REMOTE_SYNC_KEY, callback);
+        if (flight == null) {
+            return;
+        }
+
+        if (mOutboxFlusher == null) {
+            pullChanges(flight, true);
+            return;
+        }
+        // Push before pulling, so the pulled changes already include the queued ones.
+        mQueuedDuringSync = false;
+        mOutboxFlusher.flushNow(new OutboxFlusher.FlushCallback() {
+            @Override
+            public void onFlushed(boolean drained) {
+                pullChanges(flight, drained);
+            }
+        });
+    }
+
+    private void pullChanges(@NonNull final SingleFlight.Flight<LoadTeamChangesCallback> flight,
+                             final boolean outboxDrained) {
+        getSyncVersion(new GetSyncVersionCallback() {
+            @Override
+            public void onSyncVersionLoaded(long version) {
+                mTeamsRemoteDataSource.getTeamChanges(version, new LoadTeamChangesCallback() {
+                    @Override
+                    public void onTeamChangesLoaded(TeamChanges changes) {
+                        applyTeamChanges(changes);
+                        if (!outboxDrained || mQueuedDuringSync) {
+                            // The local data source keeps the queued changes on top of the pulled
+                            // ones, the cache can't: let the next read go back to it. The index
+                            // has the pulled changes and keeps serving lookups meanwhile.
+                            mCache.invalidate();
+                            onCacheChanged();
+                        }
+                        for (LoadTeamChangesCallback landed : mSyncs.land(REMOTE_SYNC_KEY, flight)) {
+                            landed.onTeamChangesLoaded(changes);
+                        }
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {
+                        for (LoadTeamChangesCallback landed : mSyncs.land(REMOTE_SYNC_KEY, flight)) {
+                            landed.onDataNotAvailable();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Reloads an expired team from the network in the background. The cached copy stays in use
+     * until the new one arrives.
+     */
+    private void revalidateTeam(@NonNull final String teamId) {
+        final SingleFlight.Flight<GetTeamCallback> flight = mTeamLoads.join(teamId, IGNORE_TEAM);
+        if (flight == null) {
+            return;
+        }
+        mTeamsRemoteDataSource.getTeam(teamId, new GetTeamCallback() {
+            @Override
+            public void onTeamLoaded(Team team) {
+                mTeamsLocalDataSource.saveTeam(team);
+                cacheTeam(team);
+                for (GetTeamCallback landed : mTeamLoads.land(teamId, flight)) {
+                    landed.onTeamLoaded(team);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                for (GetTeamCallback landed : mTeamLoads.land(teamId, flight)) {
+                    landed.onDataNotAvailable();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the callback that completes {@code flight}: every caller that waited on it gets the
+     * same read-only result.
+     */
+    @NonNull
+    private LoadTeamsCallback landing(@NonNull final String key,
+                                      @NonNull final SingleFlight.Flight<LoadTeamsCallback> flight) {
+        return new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                List<Team> shared = Collections.unmodifiableList(teams);
+                for (LoadTeamsCallback landed : mTeamsLoads.land(key, flight)) {
+                    landed.onTeamsLoaded(shared);
+                }
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                for (LoadTeamsCallback landed : mTeamsLoads.land(key, flight)) {
+                    landed.onDataNotAvailable();
+                }
+            }
+        };
+    }
+
+    /**
+     * Fills the cache with every team, just read from the local data source, unless they didn't
+     * fit last time: the cache would evict them again, so reads are served from the local data
+     * source until teams are removed.
+     */
+    private void cacheLoadedTeams(List<Team> teams) {
+        if (!mCache.isOverCapacity()) {
+            refreshCache(teams);
+        }
+    }
+
     private void refreshCache(List<Team> teams) {
-        if (mCachedTeams == null) {
-            mCachedTeams = new LinkedHashMap<>();
+        Span span = Tracing.startSpan("TeamsRepository.refreshCache");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            mCache.replaceAll(teams);
+            mPrefixIndex.invalidate();
+            onCacheChanged();
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+
+    /**
+     * Returns {@code callback} ending {@code span} before it delivers.
+     */
+    private static LoadTeamsCallback ending(final Span span, final LoadTeamsCallback callback) {
+        return new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                span.end();
+                callback.onTeamsLoaded(teams);
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                span.end();
+                callback.onDataNotAvailable();
+            }
+        };
+    }
+
+    /**
+     * Returns the teams of {@code teams} matching {@code filterType}, just cached from them. They
+     * come from the cache when it kept them all.
+     */
+    private List<Team> handOver(@NonNull List<Team> teams, @NonNull TeamsFilterType filterType) {
+        if (mCache.isAvailable()) {
+            return mCache.snapshot().getTeams(filterType);
         }
-        mCachedTeams.clear();
-        for (Team team : teams) {
-            mCachedTeams.put(team.getId(), team);
+        // The cache couldn't keep them all.
+        return TeamsCache.filter(teams, filterType);
+    }
+
+    private void queue(@NonNull TeamMutation mutation) {
+        queue(Collections.singletonList(mutation));
+    }
+
+    /**
+     * Writes {@code mutations} to the local data source and the outbox, and lets the flusher send
+     * them to the remote data source in the background.
+     */
+    private void queue(@NonNull List<TeamMutation> mutations) {
+        checkNotNull(mTeamsOutbox).enqueue(mutations);
+        mQueuedDuringSync = true;
+        checkNotNull(mOutboxFlusher).requestFlush();
+    }
+
+    private void cacheTeam(@NonNull Team team) {
+        mCache.put(team);
+        mPrefixIndex.put(team);
+        onCacheChanged();
+    }
+
+    private void publishChanges(@NonNull List<Team> updatedTeams,
+                                @NonNull List<String> deletedTeamIds) {
+        publishChanges(TeamChanges.delta(++mChangeVersion, updatedTeams, deletedTeamIds));
+    }
+
+    private void publishChanges(@NonNull TeamChanges changes) {
+        // Observers may remove themselves while notified.
+        for (TeamsObserver observer : new ArrayList<>(mTeamsObservers)) {
+            observer.onTeamsChanged(changes);
         }
-        mCacheIsDirty = false;
     }
 
-    private void refreshLocalDataSource(List<Team> teams) {
-        mTeamsLocalDataSource.deleteAllTeams();
-        for (Team team : teams) {
-            mTeamsLocalDataSource.saveTeam(team);
+    /**
+     * Publishes the ids of the champions about to be cleared. The cache may not hold them all, so
+     * the stored champions are read too. The read is queued on the disk executor ahead of the
+     * clear, so it sees them.
+     */
+    private void publishClearedChampions() {
+        final Set<String> clearedIds = new LinkedHashSet<>();
+        for (Team team : mCache.snapshot().getTeams(TeamsFilterType.TOP_TEAMS)) {
+            clearedIds.add(team.getId());
+        }
+        mTeamsLocalDataSource.getTeams(TeamsFilterType.TOP_TEAMS, new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                for (Team team : teams) {
+                    clearedIds.add(team.getId());
+                }
+                publishDeletions(clearedIds);
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                publishDeletions(clearedIds);
+            }
+        });
+    }
+
+    private void publishDeletions(@NonNull Set<String> deletedTeamIds) {
+        if (!deletedTeamIds.isEmpty()) {
+            publishChanges(Collections.<Team>emptyList(), new ArrayList<>(deletedTeamIds));
         }
     }
 
+    private void onCacheChanged() {
+        // Loads in flight may have read the old data, so new requests must not join them.
+        mTeamsLoads.detachAll();
+        mTeamLoads.detachAll();
+    }
+
     @Nullable
     private Team getTeamWithId(@NonNull String id) {
-        checkNotNull(id);
-        if (mCachedTeams == null || mCachedTeams.isEmpty()) {
-            return null;
-        } else {
-            return mCachedTeams.get(id);
+        return mCache.get(checkNotNull(id));
+    }
+
+    /**
+     * Orders the two deliveries of a revalidating load: changes arriving before the stored page
+     * are held back until the page has been delivered. Only used on the main thread.
+     */
+    private static final class Revalidation {
+
+        private final RevalidateTeamsCallback mCallback;
+
+        private boolean mPageDelivered;
+
+        private boolean mPageFailed;
+
+        @Nullable
+        private TeamChanges mEarlyChanges;
+
+        Revalidation(@NonNull RevalidateTeamsCallback callback) {
+            mCallback = callback;
+        }
+
+        void onPageLoaded(List<Team> teams) {
+            mPageDelivered = true;
+            mCallback.onTeamsLoaded(teams);
+            if (mEarlyChanges != null) {
+                mCallback.onTeamsChanged(mEarlyChanges);
+                mEarlyChanges = null;
+            }
+        }
+
+        void onPageNotAvailable() {
+            mPageFailed = true;
+            mEarlyChanges = null;
+            mCallback.onDataNotAvailable();
+        }
+
+        void onChangesLoaded(TeamChanges changes) {
+            if (mPageFailed || changes.isEmpty()) {
+                return;
+            }
+            if (mPageDelivered) {
+                mCallback.onTeamsChanged(changes);
+            } else {
+                mEarlyChanges = changes;
+            }
         }
     }
 }
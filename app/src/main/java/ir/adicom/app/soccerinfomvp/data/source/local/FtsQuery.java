@@ -0,0 +1,67 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Turns what the user typed into an FTS {@code MATCH} expression. The words are split the way the
+ * FTS {@code simple} tokenizer splits the indexed text, so user input never reaches the query
+ * syntax: quotes, operators and column filters typed by the user are only separators.
+ */
+final class FtsQuery {
+
+    // Longer queries don't narrow the results further in practice, and each word costs a lookup.
+    private static final int MAX_WORDS = 8;
+
+    private FtsQuery() {
+    }
+
+    /**
+     * Returns an expression matching rows that have a word starting with each word of
+     * {@code input}, in {@code column} only if not null, or null if {@code input} has no word.
+     */
+    @Nullable
+    static String prefixMatch(@NonNull String input, @Nullable String column) {
+        StringBuilder match = new StringBuilder();
+        int words = 0;
+        int i = 0;
+        while (i < input.length() && words < MAX_WORDS) {
+            if (!isWordChar(input.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < input.length() && isWordChar(input.charAt(i))) {
+                i++;
+            }
+            if (words > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            // Lower case, as the tokenizer stores it, also keeps AND, OR and NOT from reading as
+            // operators.
+            appendLowerAscii(match, input, start, i);
+            match.append('*');
+            words++;
+        }
+        return words == 0 ? null : match.toString();
+    }
+
+    /**
+     * Same rule as the {@code simple} tokenizer: ASCII letters and digits, and anything outside
+     * ASCII.
+     */
+    private static boolean isWordChar(char c) {
+        return c >= 0x80 || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9');
+    }
+
+    private static void appendLowerAscii(StringBuilder out, String input, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            out.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * How team descriptions are stored. A description of up to {@link #INLINE_LIMIT} characters stays
+ * in the teams table. A longer one is deflated into the descriptions table, and the teams table
+ * keeps its first {@link #PREVIEW_LENGTH} characters, enough for a list row.
+ */
+final class TeamDescriptions {
+
+    static final int INLINE_LIMIT = 256;
+
+    static final int PREVIEW_LENGTH = 128;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private TeamDescriptions() {
+    }
+
+    static boolean isInline(@Nullable String description) {
+        return description == null || description.length() <= INLINE_LIMIT;
+    }
+
+    /**
+     * Returns what the teams table keeps of {@code description}: all of it if it is inline, its
+     * preview otherwise.
+     */
+    @Nullable
+    static String inlinePart(@Nullable String description) {
+        if (isInline(description)) {
+            return description;
+        }
+        int end = PREVIEW_LENGTH;
+        if (Character.isHighSurrogate(description.charAt(end - 1))) {
+            // Don't split a surrogate pair.
+            end--;
+        }
+        return description.substring(0, end);
+    }
+
+    @NonNull
+    static byte[] compress(@NonNull String description) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(description.getBytes(UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(description.length() / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns the description compressed into {@code body}, or null if it isn't a valid one.
+     */
+    @Nullable
+    static String decompress(@NonNull byte[] body) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Truncated.
+                    return null;
+                }
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+}
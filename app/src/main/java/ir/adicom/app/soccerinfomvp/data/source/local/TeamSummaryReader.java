@@ -0,0 +1,40 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+/**
+ * Reads the rows of a cursor as {@link Team#isSummary() summaries}. The column indices are
+ * resolved once per cursor, not once per row.
+ */
+final class TeamSummaryReader {
+
+    private TeamSummaryReader() {
+    }
+
+    /**
+     * Reads every row of {@code cursor}, which must have the entry id, title for list and champion
+     * columns, from the first. The caller closes the cursor.
+     */
+    @NonNull
+    static List<Team> readAll(@NonNull Cursor cursor) {
+        int idColumn = cursor.getColumnIndexOrThrow(
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID);
+        int titleForListColumn = cursor.getColumnIndexOrThrow(
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE_FOR_LIST);
+        int championColumn = cursor.getColumnIndexOrThrow(
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION);
+        List<Team> teams = new ArrayList<>(cursor.getCount());
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            teams.add(Team.summary(cursor.getString(idColumn),
+                    cursor.getString(titleForListColumn), cursor.getInt(championColumn) == 1));
+        }
+        return teams;
+    }
+}
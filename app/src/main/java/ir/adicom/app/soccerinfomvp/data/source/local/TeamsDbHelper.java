@@ -1,11 +1,18 @@
 package ir.adicom.app.soccerinfomvp.data.source.local;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class TeamsDbHelper extends SQLiteOpenHelper {
-    public static final int DATABASE_VERSION = 1;
+    public static final int DATABASE_VERSION = 6;
 
     public static final String DATABASE_NAME = "Teams.db";
 
@@ -13,8 +20,15 @@ public class TeamsDbHelper extends SQLiteOpenHelper {
 
     private static final String BOOLEAN_TYPE = " INTEGER";
 
+    private static final String BLOB_TYPE = " BLOB";
+
     private static final String COMMA_SEP = ",";
 
+    /**
+     * Long descriptions compressed per query while upgrading to version 5.
+     */
+    private static final int COMPRESS_BATCH_SIZE = 64;
+
     private static final String SQL_CREATE_ENTRIES =
             "CREATE TABLE " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " (" +
                     TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + TEXT_TYPE + " PRIMARY KEY," +
@@ -23,19 +37,268 @@ public class TeamsDbHelper extends SQLiteOpenHelper {
                     TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + BOOLEAN_TYPE +
             " )";
 
+    private static final String SQL_CREATE_CHAMPION_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + TeamsPersistenceContract.TeamEntry.INDEX_NAME_CHAMPION +
+                    " ON " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + ")";
+
+    private static final String SQL_CREATE_SYNC_STATE =
+            "CREATE TABLE " + TeamsPersistenceContract.SyncEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.SyncEntry._ID + " INTEGER PRIMARY KEY," +
+                    TeamsPersistenceContract.SyncEntry.COLUMN_NAME_VERSION + " INTEGER NOT NULL" +
+            " )";
+
+    private static final String SQL_CREATE_OUTBOX =
+            "CREATE TABLE " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.OutboxEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TYPE + TEXT_TYPE + " NOT NULL," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TEAM_ID + TEXT_TYPE + COMMA_SEP +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TITLE + TEXT_TYPE + COMMA_SEP +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_DESCRIPTION + TEXT_TYPE + COMMA_SEP +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_CHAMPION + BOOLEAN_TYPE +
+            " )";
+
+    private static final String SQL_CREATE_OUTBOX_TEAM_ID_INDEX =
+            "CREATE INDEX " + TeamsPersistenceContract.OutboxEntry.INDEX_NAME_TEAM_ID +
+                    " ON " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TEAM_ID + ")";
+
+    private static final String SQL_CREATE_DESCRIPTIONS =
+            "CREATE TABLE " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID + TEXT_TYPE + " PRIMARY KEY," +
+                    TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_BODY + BLOB_TYPE + " NOT NULL" +
+            " )";
+
+    // Every way of deleting teams drops their descriptions too. Replacing a team doesn't fire it,
+    // the data source rewrites the description then.
+    private static final String SQL_CREATE_DESCRIPTIONS_DELETE_TRIGGER =
+            "CREATE TRIGGER " + TeamsPersistenceContract.DescriptionEntry.TRIGGER_NAME_DELETE +
+                    " AFTER DELETE ON " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " BEGIN" +
+                    " DELETE FROM " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME +
+                    " WHERE " + TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID +
+                    " = old." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + ";" +
+            " END";
+
+    // The index refers to teams by rowid, which only VACUUM could renumber; the app never runs it.
+    // A replaced team is deleted without firing delete triggers, so its entry goes before the
+    // insert instead.
+    private static final String SQL_CREATE_SEARCH_BEFORE_INSERT_TRIGGER =
+            "CREATE TRIGGER " + TeamsPersistenceContract.SearchEntry.TRIGGER_NAME_BEFORE_INSERT +
+                    " BEFORE INSERT ON " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " BEGIN" +
+                    " DELETE FROM " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                    " WHERE " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + " = (" +
+                    "SELECT rowid FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+                    " WHERE " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID +
+                    " = new." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + ");" +
+            " END";
+
+    private static final String SQL_CREATE_SEARCH_AFTER_INSERT_TRIGGER =
+            "CREATE TRIGGER " + TeamsPersistenceContract.SearchEntry.TRIGGER_NAME_AFTER_INSERT +
+                    " AFTER INSERT ON " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " BEGIN" +
+                    " INSERT INTO " + TeamsPersistenceContract.SearchEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + "," +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DESCRIPTION + ") VALUES (" +
+                    "new.rowid," +
+                    "new." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                    "new." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION + ");" +
+            " END";
+
+    private static final String SQL_CREATE_SEARCH_AFTER_UPDATE_TRIGGER =
+            "CREATE TRIGGER " + TeamsPersistenceContract.SearchEntry.TRIGGER_NAME_AFTER_UPDATE +
+                    " AFTER UPDATE OF " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION +
+                    " ON " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " BEGIN" +
+                    " UPDATE " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                    " SET " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_TITLE +
+                    " = new." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DESCRIPTION +
+                    " = new." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION +
+                    " WHERE " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + " = old.rowid;" +
+            " END";
+
+    private static final String SQL_CREATE_SEARCH_AFTER_DELETE_TRIGGER =
+            "CREATE TRIGGER " + TeamsPersistenceContract.SearchEntry.TRIGGER_NAME_AFTER_DELETE +
+                    " AFTER DELETE ON " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " BEGIN" +
+                    " DELETE FROM " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                    " WHERE " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + " = old.rowid;" +
+            " END";
+
+    // Long descriptions are indexed whole by the data source, the triggers only see the preview.
+    static final String SQL_INDEX_FULL_DESCRIPTION =
+            "UPDATE " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+            " SET " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DESCRIPTION + " = ?" +
+            " WHERE " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + " = (" +
+            "SELECT rowid FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " = ?)";
+
     public TeamsDbHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    @VisibleForTesting
+    TeamsDbHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Switches the database to write-ahead logging so reads on the long-lived connection can run
+     * while a write is in progress. Only called on API 16 and above; older devices keep the
+     * default rollback journal.
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
     }
 
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_ENTRIES);
+        db.execSQL(SQL_CREATE_CHAMPION_INDEX);
+        db.execSQL(SQL_CREATE_SYNC_STATE);
+        db.execSQL(SQL_CREATE_OUTBOX);
+        db.execSQL(SQL_CREATE_OUTBOX_TEAM_ID_INDEX);
+        db.execSQL(SQL_CREATE_DESCRIPTIONS);
+        db.execSQL(SQL_CREATE_DESCRIPTIONS_DELETE_TRIGGER);
+        createSearchIndex(db);
     }
 
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Not required as at version 1
+        if (oldVersion < 2) {
+            // Version 2 indexes the champion flag so filtered reads and deletes avoid a table scan.
+            db.execSQL(SQL_CREATE_CHAMPION_INDEX);
+        }
+        if (oldVersion < 3) {
+            // Version 3 records the version of the last synced changes. Existing rows are kept,
+            // the first sync after the upgrade is a full one.
+            db.execSQL(SQL_CREATE_SYNC_STATE);
+        }
+        if (oldVersion < 4) {
+            // Version 4 queues the user's changes until the backend has them.
+            db.execSQL(SQL_CREATE_OUTBOX);
+            db.execSQL(SQL_CREATE_OUTBOX_TEAM_ID_INDEX);
+        }
+        if (oldVersion < 5) {
+            // Version 5 moves long descriptions out of the teams table, compressed.
+            db.execSQL(SQL_CREATE_DESCRIPTIONS);
+            db.execSQL(SQL_CREATE_DESCRIPTIONS_DELETE_TRIGGER);
+            compressLongDescriptions(db);
+        }
+        if (oldVersion < 6) {
+            // Version 6 adds the full-text index, built from the existing rows.
+            createSearchIndex(db);
+            db.execSQL("INSERT INTO " + TeamsPersistenceContract.SearchEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + "," +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DESCRIPTION + ")" +
+                    " SELECT rowid," +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION +
+                    " FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME);
+            indexFullDescriptions(db);
+        }
+    }
+
+    /**
+     * Creates the full-text index of the teams and the triggers keeping it in sync. From API 16
+     * the index also stores the one to three character prefixes of every word, so a short prefix
+     * doesn't expand into every word it starts.
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        String prefixes = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                ? COMMA_SEP + "prefix=\"1,2,3\"" : "";
+        db.execSQL("CREATE VIRTUAL TABLE " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                " USING fts4(" +
+                TeamsPersistenceContract.SearchEntry.COLUMN_NAME_TITLE + COMMA_SEP +
+                TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DESCRIPTION + prefixes + ")");
+        db.execSQL(SQL_CREATE_SEARCH_BEFORE_INSERT_TRIGGER);
+        db.execSQL(SQL_CREATE_SEARCH_AFTER_INSERT_TRIGGER);
+        db.execSQL(SQL_CREATE_SEARCH_AFTER_UPDATE_TRIGGER);
+        db.execSQL(SQL_CREATE_SEARCH_AFTER_DELETE_TRIGGER);
+    }
+
+    /**
+     * Puts the whole text of the compressed descriptions in the full-text index, in place of their
+     * preview.
+     */
+    private static void indexFullDescriptions(SQLiteDatabase db) {
+        SQLiteStatement update = db.compileStatement(SQL_INDEX_FULL_DESCRIPTION);
+        Cursor c = db.rawQuery(
+                "SELECT " + TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID + "," +
+                        TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_BODY +
+                " FROM " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME, null);
+        try {
+            while (c.moveToNext()) {
+                String description = TeamDescriptions.decompress(c.getBlob(1));
+                if (description != null) {
+                    update.bindString(1, description);
+                    update.bindString(2, c.getString(0));
+                    update.executeUpdateDelete();
+                }
+            }
+        } finally {
+            c.close();
+            update.close();
+        }
+    }
+
+    /**
+     * Moves the descriptions longer than {@link TeamDescriptions#INLINE_LIMIT} to the descriptions
+     * table, leaving their preview in the teams table.
+     * <p>
+     * Works in batches: each batch is read before it is written, and the next query finds the rows
+     * left. A cursor over the rows being updated would skip some, since it re-runs its query at an
+     * offset when it moves to its next window.
+     */
+    private static void compressLongDescriptions(SQLiteDatabase db) {
+        SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME + " (" +
+                        TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID + "," +
+                        TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_BODY +
+                ") VALUES (?,?)");
+        SQLiteStatement update = db.compileStatement(
+                "UPDATE " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+                " SET " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION + " = ?" +
+                " WHERE " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " = ?");
+        String query = "SELECT " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + "," +
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION +
+                " FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+                " WHERE length(" + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION +
+                ") > " + TeamDescriptions.INLINE_LIMIT +
+                " LIMIT " + COMPRESS_BATCH_SIZE;
+        List<String> ids = new ArrayList<>(COMPRESS_BATCH_SIZE);
+        List<String> descriptions = new ArrayList<>(COMPRESS_BATCH_SIZE);
+        try {
+            do {
+                ids.clear();
+                descriptions.clear();
+                Cursor c = db.rawQuery(query, null);
+                try {
+                    while (c.moveToNext()) {
+                        ids.add(c.getString(0));
+                        descriptions.add(c.getString(1));
+                    }
+                } finally {
+                    c.close();
+                }
+                // Each preview is within the limit, so the next query skips these rows.
+                for (int i = 0; i < ids.size(); i++) {
+                    String description = descriptions.get(i);
+                    insert.bindString(1, ids.get(i));
+                    insert.bindBlob(2, TeamDescriptions.compress(description));
+                    insert.executeInsert();
+                    update.bindString(1, TeamDescriptions.inlinePart(description));
+                    update.bindString(2, ids.get(i));
+                    update.executeUpdateDelete();
+                }
+            } while (ids.size() == COMPRESS_BATCH_SIZE);
+        } finally {
+            insert.close();
+            update.close();
+        }
     }
 
     public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Not required as at version 1
+        // Not required: every version so far only adds to the version 1 schema. An older version
+        // reading a version 5 database shows long descriptions cut to their preview.
     }
 }
@@ -0,0 +1,226 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+
+import com.google.common.base.Strings;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The list last shown, kept in a small binary file so the next cold start can draw it before the
+ * database is open. Only what a row shows is kept: the id, the title for the list and the
+ * champion flag, in the order shown, under the filter they were shown with.
+ * <p>
+ * The file is replaced atomically: it is written next to the old one and renamed over it, so a
+ * crash mid-write leaves the previous snapshot. A missing, unreadable or outdated file reads as
+ * no snapshot. Files that can't be read or written are reported to the {@link ErrorReporter}
+ * given, if any.
+ */
+public class TeamsListSnapshot {
+
+    private static final int MAGIC = 0x54534e50; // "TSNP"
+
+    /**
+     * Bump when the layout changes. Files of other versions are ignored.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private final File mFile;
+
+    private final Executor mExecutor;
+
+    @Nullable
+    private final ErrorReporter mErrorReporter;
+
+    /**
+     * The teams last read or saved, or null if there are none yet.
+     */
+    @Nullable
+    private volatile Contents mContents;
+
+    /**
+     * @param file     where the snapshot is kept
+     * @param executor where it is written, off the main thread
+     */
+    public TeamsListSnapshot(@NonNull File file, @NonNull Executor executor) {
+        this(file, executor, null);
+    }
+
+    /**
+     * @param file          where the snapshot is kept
+     * @param executor      where it is written, off the main thread
+     * @param errorReporter told when the file can't be read or written, or null
+     */
+    public TeamsListSnapshot(@NonNull File file, @NonNull Executor executor,
+                             @Nullable ErrorReporter errorReporter) {
+        mFile = checkNotNull(file);
+        mExecutor = checkNotNull(executor);
+        mErrorReporter = errorReporter;
+    }
+
+    /**
+     * Reads the file, so {@link #peek(TeamsFilterType)} can answer without touching the disk.
+     */
+    @WorkerThread
+    public void preload() {
+        Contents contents = read(mFile, mErrorReporter);
+        if (contents != null && mContents == null) {
+            mContents = contents;
+        }
+    }
+
+    /**
+     * Returns the teams saved under {@code filterType}, or null if they aren't preloaded, or were
+     * saved under another filter. Never blocks.
+     */
+    @Nullable
+    public List<Team> peek(@NonNull TeamsFilterType filterType) {
+        Contents contents = mContents;
+        if (contents == null || contents.mFilterType != checkNotNull(filterType)) {
+            return null;
+        }
+        return contents.mTeams;
+    }
+
+    /**
+     * Replaces the snapshot with {@code teams}, shown under {@code filterType}. The file is
+     * written in the background.
+     */
+    public void save(@NonNull TeamsFilterType filterType, @NonNull List<Team> teams) {
+        List<Team> rows = new ArrayList<>(teams.size());
+        for (Team team : teams) {
+            rows.add(Team.summary(team.getId(), Strings.nullToEmpty(team.getTitleForList()),
+                    team.isChampion()));
+        }
+        final Contents contents = new Contents(checkNotNull(filterType),
+                Collections.unmodifiableList(rows));
+        mContents = contents;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(mFile, contents);
+                } catch (IOException e) {
+                    reportError(mErrorReporter, "Couldn't save the list snapshot", e);
+                }
+            }
+        });
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static Contents read(@NonNull File file, @Nullable ErrorReporter errorReporter) {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            TeamsFilterType filterType = TeamsFilterType.valueOf(in.readUTF());
+            int count = in.readInt();
+            List<Team> teams = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String title = in.readUTF();
+                teams.add(Team.summary(id, title, in.readBoolean()));
+            }
+            return new Contents(filterType, Collections.unmodifiableList(teams));
+        } catch (IOException | IllegalArgumentException e) {
+            reportError(errorReporter, "Ignoring an unreadable list snapshot", e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    @VisibleForTesting
+    static void write(@NonNull File file, @NonNull Contents contents) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temp);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(contents.mFilterType.name());
+            out.writeInt(contents.mTeams.size());
+            for (Team team : contents.mTeams) {
+                out.writeUTF(team.getId());
+                out.writeUTF(Strings.nullToEmpty(team.getTitleForList()));
+                out.writeBoolean(team.isChampion());
+            }
+            out.flush();
+            // The rename must not reach the disk before the data does.
+            stream.getFD().sync();
+        } catch (IOException e) {
+            closeQuietly(stream);
+            temp.delete();
+            throw e;
+        }
+        stream.close();
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Couldn't rename " + temp + " to " + file);
+        }
+    }
+
+    private static void reportError(@Nullable ErrorReporter errorReporter, String message,
+                                    Exception e) {
+        if (errorReporter != null) {
+            errorReporter.onError(message, e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with it.
+        }
+    }
+
+    /**
+     * Told when the snapshot file can't be read or written. The snapshot carries on without it.
+     */
+    public interface ErrorReporter {
+
+        void onError(@NonNull String message, @NonNull Exception e);
+    }
+
+    @VisibleForTesting
+    static final class Contents {
+
+        final TeamsFilterType mFilterType;
+
+        final List<Team> mTeams;
+
+        Contents(TeamsFilterType filterType, List<Team> teams) {
+            mFilterType = filterType;
+            mTeams = teams;
+        }
+    }
+}
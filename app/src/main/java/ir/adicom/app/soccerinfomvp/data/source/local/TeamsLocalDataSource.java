@@ -4,35 +4,199 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.google.common.base.Joiner;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
 import ir.adicom.app.soccerinfomvp.data.source.TeamsDataSource;
+import ir.adicom.app.soccerinfomvp.data.source.TeamsOutbox;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+import ir.adicom.app.soccerinfomvp.util.AppExecutors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 
 /**
- * Concrete implementation of a data source as a db.
+ * Concrete implementation of a data source as a db. It also holds the outbox, so a change and its
+ * outbox entry are written in the same transaction.
+ * <p>
+ * Every query runs on {@link AppExecutors#diskIO()} and callbacks are delivered on
+ * {@link AppExecutors#mainThread()}, so callers never block on SQLite.
  */
-public class TeamsLocalDataSource implements TeamsDataSource {
+public class TeamsLocalDataSource implements TeamsDataSource, TeamsOutbox {
+
+    private static final String TAG = "TeamsLocalDataSource";
 
     private static TeamsLocalDataSource INSTANCE;
 
+    private static final String SQL_INSERT_TEAM =
+            "INSERT OR REPLACE INTO " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + "," +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION + "," +
+                    TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION +
+            ") VALUES (?,?,?,?)";
+
+    private static final String SQL_INSERT_DESCRIPTION =
+            "INSERT OR REPLACE INTO " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID + "," +
+                    TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_BODY +
+            ") VALUES (?,?)";
+
+    private static final String SQL_DELETE_DESCRIPTION =
+            "DELETE FROM " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID + " = ?";
+
+    // Row queries can't go through a SQLiteStatement. Keeping the SQL constant lets the connection's
+    // prepared statement cache reuse the compiled query instead.
+    private static final String SQL_SELECT_TEAM =
+            "SELECT t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + "," +
+                    "t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE + "," +
+                    "t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION + "," +
+                    "t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + "," +
+                    "d." + TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_BODY +
+            " FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " t" +
+            " LEFT JOIN " + TeamsPersistenceContract.DescriptionEntry.TABLE_NAME + " d" +
+            " ON d." + TeamsPersistenceContract.DescriptionEntry.COLUMN_NAME_ENTRY_ID +
+            " = t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID +
+            " WHERE t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " = ?";
+
+    // What a list row shows. Long descriptions are only read through their inline preview.
+    private static final String[] LIST_PROJECTION = {
+            TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID,
+            titleForList("") + " AS " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE_FOR_LIST,
+            TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION
+    };
+
+    // Matches in the title (?1) rank before matches elsewhere only (?2). SQLite runs the selects
+    // of a UNION ALL in order, so that ranks them without sorting every match, and a page stops
+    // reading once it is full. Within a rank, teams come in index order. %s is where the
+    // champion filter goes.
+    private static final String SQL_SEARCH_TEMPLATE =
+            searchSelect() + " WHERE " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                    " MATCH ?1%1$s" +
+            " UNION ALL " +
+            searchSelect() + " WHERE " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                    " MATCH ?2%1$s AND " + TeamsPersistenceContract.SearchEntry.TABLE_NAME + "." +
+                    TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID + " NOT IN (" +
+                    "SELECT " + TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID +
+                    " FROM " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                    " WHERE " + TeamsPersistenceContract.SearchEntry.TABLE_NAME + " MATCH ?1)" +
+            " LIMIT CAST(?3 AS INTEGER) OFFSET CAST(?4 AS INTEGER)";
+
+    private static final String SQL_SEARCH_TEAMS = String.format(SQL_SEARCH_TEMPLATE, "");
+
+    private static final String SQL_SEARCH_FILTERED_TEAMS = String.format(SQL_SEARCH_TEMPLATE,
+            " AND t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " = ?5");
+
+    private static final String SQL_UPDATE_CHAMPION =
+            "UPDATE " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+            " SET " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " = ?" +
+            " WHERE " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " = ?";
+
+    private static final String SQL_DELETE_TEAM =
+            "DELETE FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " = ?";
+
+    private static final String SQL_DELETE_CHAMPION_TEAMS =
+            "DELETE FROM " + TeamsPersistenceContract.TeamEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " = 1";
+
+    private static final String SQL_SELECT_SYNC_VERSION =
+            "SELECT IFNULL(MAX(" + TeamsPersistenceContract.SyncEntry.COLUMN_NAME_VERSION + "), " +
+                    TeamChanges.NO_VERSION + ") FROM " + TeamsPersistenceContract.SyncEntry.TABLE_NAME;
+
+    private static final String SQL_UPDATE_SYNC_VERSION =
+            "INSERT OR REPLACE INTO " + TeamsPersistenceContract.SyncEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.SyncEntry._ID + "," +
+                    TeamsPersistenceContract.SyncEntry.COLUMN_NAME_VERSION +
+            ") VALUES (1,?)";
+
+    private static final String SQL_INSERT_MUTATION =
+            "INSERT INTO " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME + " (" +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TYPE + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TEAM_ID + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_DESCRIPTION + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_CHAMPION +
+            ") VALUES (?,?,?,?,?)";
+
+    private static final String SQL_SELECT_MUTATIONS =
+            "SELECT " + TeamsPersistenceContract.OutboxEntry._ID + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TYPE + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TEAM_ID + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TITLE + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_DESCRIPTION + "," +
+                    TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_CHAMPION +
+            " FROM " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME;
+
+    private static final String SQL_SELECT_PENDING_MUTATION = SQL_SELECT_MUTATIONS +
+            " WHERE " + TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TEAM_ID + " = ?" +
+            " AND " + TeamsPersistenceContract.OutboxEntry._ID + " > ?";
+
+    private static final String SQL_SELECT_LAST_GLOBAL_MUTATION =
+            "SELECT IFNULL(MAX(" + TeamsPersistenceContract.OutboxEntry._ID + "), " +
+                    TeamMutation.NO_SEQUENCE + ") FROM " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.OutboxEntry.COLUMN_NAME_TEAM_ID + " IS NULL";
+
+    private static final String SQL_DELETE_MUTATION =
+            "DELETE FROM " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.OutboxEntry._ID + " = ?";
+
+    private static final String SQL_DELETE_MUTATIONS_AFTER =
+            "DELETE FROM " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.OutboxEntry._ID + " > ?";
+
+    private static final String SQL_DELETE_MUTATIONS_UP_TO =
+            "DELETE FROM " + TeamsPersistenceContract.OutboxEntry.TABLE_NAME +
+            " WHERE " + TeamsPersistenceContract.OutboxEntry._ID + " <= ?";
+
     private TeamsDbHelper mDbHelper;
 
+    private AppExecutors mAppExecutors;
+
+    /**
+     * Opened on first use and kept for the lifetime of the process, so SQLite keeps its schema and
+     * page cache between operations. Only touched from {@link AppExecutors#diskIO()}.
+     */
+    private SQLiteDatabase mDatabase;
+
+    /**
+     * Statements compiled once against {@link #mDatabase} and reused, keyed by their SQL.
+     * Only touched from {@link AppExecutors#diskIO()}, which is what makes sharing them safe.
+     */
+    private final Map<String, SQLiteStatement> mStatements = new HashMap<>();
+
+    /**
+     * Sequence of the last outbox entry in flight, or {@link TeamMutation#NO_SEQUENCE}. Entries up
+     * to it are never merged. Only touched from {@link AppExecutors#diskIO()}; nothing is in flight
+     * after a restart.
+     */
+    private long mInFlightSequence = TeamMutation.NO_SEQUENCE;
+
     // Prevent direct instantiation.
-    private TeamsLocalDataSource(@NonNull Context context) {
+    private TeamsLocalDataSource(@NonNull AppExecutors appExecutors, @NonNull Context context) {
         checkNotNull(context);
+        mAppExecutors = checkNotNull(appExecutors);
         mDbHelper = new TeamsDbHelper(context);
     }
 
-    public static TeamsLocalDataSource getInstance(@NonNull Context context) {
+    public static TeamsLocalDataSource getInstance(@NonNull AppExecutors appExecutors,
+                                                   @NonNull Context context) {
         if (INSTANCE == null) {
-            INSTANCE = new TeamsLocalDataSource(context);
+            INSTANCE = new TeamsLocalDataSource(appExecutors, context);
         }
         return INSTANCE;
     }
@@ -42,122 +206,572 @@ public class TeamsLocalDataSource implements TeamsDataSource {
      * or the table is empty.
      */
     @Override
-    public void getTeams(@NonNull LoadTeamsCallback callback) {
-        List<Team> teams = new ArrayList<Team>();
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+    public void getTeams(@NonNull final LoadTeamsCallback callback) {
+        getTeams(TeamsFilterType.ALL_TEAMS, callback);
+    }
 
-        String[] projection = {
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID,
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE,
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION,
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION
-        };
+    /**
+     * Filters with {@code WHERE champion = ?} on the indexed champion column, so only matching rows
+     * are read.
+     * <p>
+     * The teams are {@link Team#isSummary() summaries}, all read on the disk thread, so the main
+     * thread never touches the cursor. {@link #getTeam} loads the rest of a team.
+     * <p>
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired if no row matches.
+     */
+    @Override
+    public void getTeams(@NonNull final TeamsFilterType filterType,
+                         @NonNull final LoadTeamsCallback callback) {
+        checkNotNull(filterType);
+        String selection = null;
+        String[] selectionArgs = null;
+        if (filterType != TeamsFilterType.ALL_TEAMS) {
+            selection = TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " = ?";
+            selectionArgs = new String[]{ championArg(filterType) };
+        }
+        queryTeams(selection, selectionArgs, null, null, callback);
+    }
 
-        Cursor c = db.query(
-                TeamsPersistenceContract.TeamEntry.TABLE_NAME, projection, null, null, null, null, null);
+    /**
+     * Keyset pagination on the entry id primary key: the page starts right after
+     * {@code afterTeamId} in the index, so every page costs the same regardless of its depth.
+     * Like {@link #getTeams(TeamsFilterType, LoadTeamsCallback)}, it reads summaries.
+     * <p>
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired if no row is left.
+     */
+    @Override
+    public void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                             int pageSize, @NonNull LoadTeamsCallback callback) {
+        checkNotNull(filterType);
+        List<String> clauses = new ArrayList<>(2);
+        List<String> args = new ArrayList<>(2);
+        if (afterTeamId != null) {
+            clauses.add(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " > ?");
+            args.add(afterTeamId);
+        }
+        if (filterType != TeamsFilterType.ALL_TEAMS) {
+            clauses.add(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " = ?");
+            args.add(championArg(filterType));
+        }
+        String selection = clauses.isEmpty() ? null : Joiner.on(" AND ").join(clauses);
+        String[] selectionArgs = args.isEmpty() ? null : args.toArray(new String[args.size()]);
 
-        if (c != null && c.getCount() > 0) {
-            while (c.moveToNext()) {
-                String itemId = c.getString(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID));
-                String title = c.getString(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE));
-                String description =
-                        c.getString(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION));
-                boolean champion =
-                        c.getInt(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION)) == 1;
-                Team team = new Team(title, description, itemId, champion);
-                teams.add(team);
+        queryTeams(selection, selectionArgs, TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID,
+                String.valueOf(pageSize), callback);
+    }
+
+    /**
+     * Looks the words up in the full-text index of the titles and descriptions, each as a word
+     * prefix. Teams matching in their title come first. Pages are counted by offset: search
+     * results are rarely paged deep.
+     * <p>
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired if no team matches, or
+     * {@code query} has no word.
+     */
+    @Override
+    public void searchTeams(@NonNull final String query, @NonNull final TeamsFilterType filterType,
+                            final int offset, final int pageSize,
+                            @NonNull final LoadTeamsCallback callback) {
+        checkNotNull(query);
+        checkNotNull(filterType);
+        checkNotNull(callback);
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                Cursor c = search(getDatabase(), query, filterType, offset, pageSize);
+                deliverTeams(c, callback);
             }
+        };
+
+        mAppExecutors.diskIO().execute(runnable);
+    }
+
+    /**
+     * Runs the search query of {@link #searchTeams} on {@code db}, or returns null if
+     * {@code query} has no word. The rows have the columns {@link TeamSummaryReader} reads.
+     */
+    @VisibleForTesting
+    @Nullable
+    static Cursor search(@NonNull SQLiteDatabase db, @NonNull String query,
+                         @NonNull TeamsFilterType filterType, int offset, int pageSize) {
+        String inTitle = FtsQuery.prefixMatch(query,
+                TeamsPersistenceContract.SearchEntry.COLUMN_NAME_TITLE);
+        if (inTitle == null) {
+            return null;
         }
-        if (c != null) {
-            c.close();
+        String anywhere = FtsQuery.prefixMatch(query, null);
+        String limit = String.valueOf(pageSize);
+        String skip = String.valueOf(offset);
+        if (filterType == TeamsFilterType.ALL_TEAMS) {
+            return db.rawQuery(SQL_SEARCH_TEAMS, new String[]{ inTitle, anywhere, limit, skip });
         }
+        return db.rawQuery(SQL_SEARCH_FILTERED_TEAMS,
+                new String[]{ inTitle, anywhere, limit, skip, championArg(filterType) });
+    }
+
+    private void queryTeams(@Nullable final String selection, @Nullable final String[] selectionArgs,
+                            @Nullable final String orderBy, @Nullable final String limit,
+                            @NonNull final LoadTeamsCallback callback) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
+
+                Cursor c = db.query(
+                        TeamsPersistenceContract.TeamEntry.TABLE_NAME, LIST_PROJECTION, selection, selectionArgs, null, null, orderBy, limit);
+
+                deliverTeams(c, callback);
+            }
+        };
 
-        db.close();
+        mAppExecutors.diskIO().execute(runnable);
+    }
 
-        if (teams.isEmpty()) {
-            // This will be called if the table is new or just empty.
-            callback.onDataNotAvailable();
+    /**
+     * Reads every summary of {@code c}, closes it and delivers them on the main thread. Must be
+     * called on {@link AppExecutors#diskIO()}.
+     *
+     * @param c the rows, or null for none
+     */
+    private void deliverTeams(@Nullable Cursor c, @NonNull final LoadTeamsCallback callback) {
+        final List<Team> teams;
+        if (c == null) {
+            teams = new ArrayList<>(0);
         } else {
-            callback.onTeamsLoaded(teams);
+            try {
+                teams = TeamSummaryReader.readAll(c);
+            } finally {
+                c.close();
+            }
         }
 
+        mAppExecutors.mainThread().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (teams.isEmpty()) {
+                    // This will be called if the table is new or just empty.
+                    callback.onDataNotAvailable();
+                } else {
+                    callback.onTeamsLoaded(teams);
+                }
+            }
+        });
     }
 
     /**
+     * Reads the whole team, decompressing its description if it is a long one.
+     * <p>
      * Note: {@link GetTeamCallback#onDataNotAvailable()} is fired if the {@link Team} isn't
      * found.
      */
     @Override
-    public void getTeam(@NonNull String teamId, @NonNull GetTeamCallback callback) {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+    public void getTeam(@NonNull final String teamId, @NonNull final GetTeamCallback callback) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
+
+                String[] selectionArgs = { teamId };
+
+                Cursor c = db.rawQuery(SQL_SELECT_TEAM, selectionArgs);
+
+                Team team = null;
+
+                try {
+                    // Columns in the order of SQL_SELECT_TEAM.
+                    if (c.moveToFirst()) {
+                        String description = c.getString(2);
+                        byte[] body = c.getBlob(4);
+                        if (body != null) {
+                            String full = TeamDescriptions.decompress(body);
+                            if (full != null) {
+                                description = full;
+                            } else {
+                                Log.w(TAG, "Unreadable description, showing its preview");
+                            }
+                        }
+                        team = new Team(c.getString(1), description, c.getString(0),
+                                c.getInt(3) == 1);
+                    }
+                } finally {
+                    c.close();
+                }
+
+                final Team loadedTeam = team;
+                mAppExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadedTeam != null) {
+                            callback.onTeamLoaded(loadedTeam);
+                        } else {
+                            callback.onDataNotAvailable();
+                        }
+                    }
+                });
+            }
+        };
+
+        mAppExecutors.diskIO().execute(runnable);
+    }
+
+    @Override
+    public void getTeamChanges(long sinceVersion, @NonNull LoadTeamChangesCallback callback) {
+        // Not required because the {@link TeamsRepository} only pulls changes from the remote
+        // data source.
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void getSyncVersion(@NonNull final GetSyncVersionCallback callback) {
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                final long version = getStatement(SQL_SELECT_SYNC_VERSION).simpleQueryForLong();
+
+                mAppExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onSyncVersionLoaded(version);
+                    }
+                });
+            }
+        };
 
-        String[] projection = {
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID,
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE,
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION,
-                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION
+        mAppExecutors.diskIO().execute(runnable);
+    }
+
+    /**
+     * Writes only the changed rows, deletes the tombstoned ones and records the new version inside
+     * one transaction, so a crash never leaves the version ahead of the rows. Changes still in the
+     * outbox are applied again afterwards so they aren't overwritten.
+     */
+    @Override
+    public void applyTeamChanges(@NonNull final TeamChanges changes) {
+        checkNotNull(changes);
+        Runnable applyRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
+
+                SQLiteStatement delete = getStatement(SQL_DELETE_TEAM);
+                SQLiteStatement updateVersion = getStatement(SQL_UPDATE_SYNC_VERSION);
+                db.beginTransaction();
+                try {
+                    if (changes.isFullSnapshot()) {
+                        db.delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, null);
+                    }
+                    for (Team team : changes.getUpdatedTeams()) {
+                        writeTeam(team);
+                    }
+                    for (String teamId : changes.getDeletedTeamIds()) {
+                        delete.bindString(1, teamId);
+                        delete.executeUpdateDelete();
+                    }
+                    // The backend doesn't have the queued changes yet, keep them on top.
+                    for (TeamMutation mutation : readMutations(null, null, null)) {
+                        applyMutation(mutation);
+                    }
+                    updateVersion.bindLong(1, changes.getVersion());
+                    updateVersion.executeInsert();
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        };
+
+        mAppExecutors.diskIO().execute(applyRunnable);
+    }
+
+    @Override
+    public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                  @NonNull PushTeamMutationsCallback callback) {
+        // Not required because the local changes are queued with enqueue(List).
+        callback.onPushFailed();
+    }
+
+    @Override
+    public void enqueue(@NonNull final List<TeamMutation> mutations) {
+        checkNotNull(mutations);
+        Runnable enqueueRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
+
+                db.beginTransaction();
+                try {
+                    for (TeamMutation mutation : mutations) {
+                        applyMutation(mutation);
+                        queueMutation(mutation);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        };
+
+        mAppExecutors.diskIO().execute(enqueueRunnable);
+    }
+
+    @Override
+    public void getPendingMutations(final int limit,
+                                    @NonNull final LoadTeamMutationsCallback callback) {
+        checkNotNull(callback);
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                final List<TeamMutation> mutations = readMutations(null, null, String.valueOf(limit));
+                if (!mutations.isEmpty()) {
+                    mInFlightSequence = mutations.get(mutations.size() - 1).getSequence();
+                }
+
+                mAppExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onTeamMutationsLoaded(mutations);
+                    }
+                });
+            }
+        };
+
+        mAppExecutors.diskIO().execute(runnable);
+    }
+
+    @Override
+    public void removeMutations(@NonNull final List<TeamMutation> mutations) {
+        checkNotNull(mutations);
+        Runnable removeRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (!mutations.isEmpty()) {
+                    // Entries are read in sequence order, so the batch is every entry up to its
+                    // last one.
+                    SQLiteStatement delete = getStatement(SQL_DELETE_MUTATIONS_UP_TO);
+                    delete.bindLong(1, mutations.get(mutations.size() - 1).getSequence());
+                    delete.executeUpdateDelete();
+                }
+                mInFlightSequence = TeamMutation.NO_SEQUENCE;
+            }
         };
 
-        String selection = TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-        String[] selectionArgs = { teamId };
+        mAppExecutors.diskIO().execute(removeRunnable);
+    }
 
-        Cursor c = db.query(
-                TeamsPersistenceContract.TeamEntry.TABLE_NAME, projection, selection, selectionArgs, null, null, null);
+    @Override
+    public void releaseMutations() {
+        mAppExecutors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                mInFlightSequence = TeamMutation.NO_SEQUENCE;
+            }
+        });
+    }
 
-        Team team = null;
+    /**
+     * Applies {@code mutation} to the teams table. Must be called on {@link AppExecutors#diskIO()}.
+     */
+    private void applyMutation(@NonNull TeamMutation mutation) {
+        switch (mutation.getType()) {
+            case SAVE:
+                writeTeam(mutation.getTeam());
+                break;
+            case CHAMPION:
+            case NORMAL:
+                SQLiteStatement update = getStatement(SQL_UPDATE_CHAMPION);
+                update.bindLong(1, mutation.getType() == TeamMutation.Type.CHAMPION ? 1 : 0);
+                update.bindString(2, mutation.getTeamId());
+                update.executeUpdateDelete();
+                break;
+            case DELETE:
+                SQLiteStatement delete = getStatement(SQL_DELETE_TEAM);
+                delete.bindString(1, mutation.getTeamId());
+                delete.executeUpdateDelete();
+                break;
+            case CLEAR_CHAMPIONS:
+                getStatement(SQL_DELETE_CHAMPION_TEAMS).executeUpdateDelete();
+                break;
+            case DELETE_ALL:
+                getDatabase().delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, null);
+                break;
+        }
+    }
 
-        if (c != null && c.getCount() > 0) {
-            c.moveToFirst();
-            String itemId = c.getString(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID));
-            String title = c.getString(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE));
-            String description =
-                    c.getString(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION));
-            boolean champion =
-                    c.getInt(c.getColumnIndexOrThrow(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION)) == 1;
-            team = new Team(title, description, itemId, champion);
+    /**
+     * Adds {@code mutation} to the outbox, merged with the pending entry of the same team. Entries
+     * in flight or queued before the last global mutation are left alone, so the backend still
+     * sees the changes in the order they were made. Must be called on {@link AppExecutors#diskIO()}.
+     */
+    private void queueMutation(@NonNull TeamMutation mutation) {
+        if (mutation.getType() == TeamMutation.Type.DELETE_ALL) {
+            // Nothing pending matters any more.
+            SQLiteStatement delete = getStatement(SQL_DELETE_MUTATIONS_AFTER);
+            delete.bindLong(1, mInFlightSequence);
+            delete.executeUpdateDelete();
+            insertMutation(mutation);
+            return;
         }
-        if (c != null) {
-            c.close();
+        if (mutation.getType().isGlobal()) {
+            insertMutation(mutation);
+            return;
+        }
+
+        long floor = Math.max(mInFlightSequence,
+                getStatement(SQL_SELECT_LAST_GLOBAL_MUTATION).simpleQueryForLong());
+        List<TeamMutation> pending = readMutations(SQL_SELECT_PENDING_MUTATION,
+                new String[]{ mutation.getTeamId(), String.valueOf(floor) }, null);
+        if (pending.isEmpty()) {
+            insertMutation(mutation);
+            return;
         }
 
-        db.close();
+        TeamMutation previous = pending.get(0);
+        switch (mutation.getType()) {
+            case SAVE:
+            case DELETE:
+                deleteMutation(previous);
+                insertMutation(mutation);
+                break;
+            default:
+                if (previous.getType() == TeamMutation.Type.SAVE) {
+                    // Fold the flag into the pending save.
+                    Team team = previous.getTeam();
+                    deleteMutation(previous);
+                    insertMutation(TeamMutation.save(new Team(team.getTitle(), team.getDescription(),
+                            team.getId(), mutation.getType() == TeamMutation.Type.CHAMPION)));
+                } else if (previous.getType() != TeamMutation.Type.DELETE
+                        && previous.getType() != mutation.getType()) {
+                    // Champion then normal, or the other way round: the two cancel out.
+                    deleteMutation(previous);
+                }
+                break;
+        }
+    }
 
+    private void insertMutation(@NonNull TeamMutation mutation) {
+        SQLiteStatement insert = getStatement(SQL_INSERT_MUTATION);
+        insert.clearBindings();
+        insert.bindString(1, mutation.getType().name());
+        if (mutation.getTeamId() != null) {
+            insert.bindString(2, mutation.getTeamId());
+        }
+        Team team = mutation.getTeam();
         if (team != null) {
-            callback.onTeamLoaded(team);
-        } else {
-            callback.onDataNotAvailable();
+            if (team.getTitle() != null) {
+                insert.bindString(3, team.getTitle());
+            }
+            if (team.getDescription() != null) {
+                insert.bindString(4, team.getDescription());
+            }
+            insert.bindLong(5, team.isChampion() ? 1 : 0);
         }
+        insert.executeInsert();
     }
 
-    @Override
-    public void saveTeam(@NonNull Team team) {
-        checkNotNull(team);
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+    private void deleteMutation(@NonNull TeamMutation mutation) {
+        SQLiteStatement delete = getStatement(SQL_DELETE_MUTATION);
+        delete.bindLong(1, mutation.getSequence());
+        delete.executeUpdateDelete();
+    }
 
-        ContentValues values = new ContentValues();
-        values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID, team.getId());
-        values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE, team.getTitle());
-        values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION, team.getDescription());
-        values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION, team.isChampion());
+    /**
+     * Reads outbox entries in sequence order, all of them when {@code sql} is null. Must be called
+     * on {@link AppExecutors#diskIO()}.
+     */
+    @NonNull
+    private List<TeamMutation> readMutations(@Nullable String sql, @Nullable String[] args,
+                                             @Nullable String limit) {
+        String query = (sql == null ? SQL_SELECT_MUTATIONS : sql) +
+                " ORDER BY " + TeamsPersistenceContract.OutboxEntry._ID +
+                (limit == null ? "" : " LIMIT " + limit);
+        Cursor c = getDatabase().rawQuery(query, args);
+        List<TeamMutation> mutations = new ArrayList<>();
+        try {
+            while (c.moveToNext()) {
+                TeamMutation.Type type = TeamMutation.Type.valueOf(c.getString(1));
+                String teamId = c.getString(2);
+                Team team = type == TeamMutation.Type.SAVE
+                        ? new Team(c.getString(3), c.getString(4), teamId, c.getInt(5) == 1)
+                        : null;
+                mutations.add(TeamMutation.fromOutbox(c.getLong(0), type, teamId, team));
+            }
+        } finally {
+            c.close();
+        }
+        return mutations;
+    }
 
-        db.insert(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, values);
+    @Override
+    public void saveTeam(@NonNull final Team team) {
+        checkNotNull(team);
+        Runnable saveRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
+
+                ContentValues values = new ContentValues();
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID, team.getId());
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE, team.getTitle());
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION,
+                        TeamDescriptions.inlinePart(team.getDescription()));
+                values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION, team.isChampion());
+
+                db.beginTransaction();
+                try {
+                    if (db.insert(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, values) != -1) {
+                        writeDescription(team);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        };
 
-        db.close();
+        mAppExecutors.diskIO().execute(saveRunnable);
     }
 
+    /**
+     * Deletes every row and inserts {@code teams} inside one transaction, so a full refresh costs a
+     * single commit. One compiled insert statement is reused for all the rows.
+     */
     @Override
-    public void championTeam(@NonNull Team team) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
-
-        ContentValues values = new ContentValues();
-        values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION, true);
+    public void replaceAllTeams(@NonNull final List<Team> teams) {
+        checkNotNull(teams);
+        Runnable replaceRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
+
+                db.beginTransaction();
+                try {
+                    db.delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, null);
+                    for (Team team : teams) {
+                        writeTeam(team);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        };
 
-        String selection = TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-        String[] selectionArgs = { team.getId() };
+        mAppExecutors.diskIO().execute(replaceRunnable);
+    }
 
-        db.update(TeamsPersistenceContract.TeamEntry.TABLE_NAME, values, selection, selectionArgs);
+    @Override
+    public void championTeam(@NonNull final Team team) {
+        Runnable championRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteStatement update = getStatement(SQL_UPDATE_CHAMPION);
+                update.bindLong(1, 1);
+                update.bindString(2, team.getId());
+                update.executeUpdateDelete();
+            }
+        };
 
-        db.close();
+        mAppExecutors.diskIO().execute(championRunnable);
     }
 
     @Override
@@ -167,18 +781,18 @@ public class TeamsLocalDataSource implements TeamsDataSource {
     }
 
     @Override
-    public void normalTeam(@NonNull Team team) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
-
-        ContentValues values = new ContentValues();
-        values.put(TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION, false);
-
-        String selection = TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-        String[] selectionArgs = { team.getId() };
-
-        db.update(TeamsPersistenceContract.TeamEntry.TABLE_NAME, values, selection, selectionArgs);
+    public void normalTeam(@NonNull final Team team) {
+        Runnable normalRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteStatement update = getStatement(SQL_UPDATE_CHAMPION);
+                update.bindLong(1, 0);
+                update.bindString(2, team.getId());
+                update.executeUpdateDelete();
+            }
+        };
 
-        db.close();
+        mAppExecutors.diskIO().execute(normalRunnable);
     }
 
     @Override
@@ -189,14 +803,14 @@ public class TeamsLocalDataSource implements TeamsDataSource {
 
     @Override
     public void clearChampionTeams() {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
-
-        String selection = TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " LIKE ?";
-        String[] selectionArgs = { "1" };
-
-        db.delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, selection, selectionArgs);
+        Runnable clearChampionTeamsRunnable = new Runnable() {
+            @Override
+            public void run() {
+                getStatement(SQL_DELETE_CHAMPION_TEAMS).executeUpdateDelete();
+            }
+        };
 
-        db.close();
+        mAppExecutors.diskIO().execute(clearChampionTeamsRunnable);
     }
 
     @Override
@@ -207,22 +821,127 @@ public class TeamsLocalDataSource implements TeamsDataSource {
 
     @Override
     public void deleteAllTeams() {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        Runnable deleteRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = getDatabase();
 
-        db.delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, null);
+                db.delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, null, null);
+            }
+        };
 
-        db.close();
+        mAppExecutors.diskIO().execute(deleteRunnable);
     }
 
     @Override
-    public void deleteTeam(@NonNull String teamId) {
-        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+    public void deleteTeam(@NonNull final String teamId) {
+        Runnable deleteRunnable = new Runnable() {
+            @Override
+            public void run() {
+                SQLiteStatement delete = getStatement(SQL_DELETE_TEAM);
+                delete.bindString(1, teamId);
+                delete.executeUpdateDelete();
+            }
+        };
 
-        String selection = TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-        String[] selectionArgs = { teamId };
+        mAppExecutors.diskIO().execute(deleteRunnable);
+    }
 
-        db.delete(TeamsPersistenceContract.TeamEntry.TABLE_NAME, selection, selectionArgs);
+    /**
+     * Returns the long-lived connection, opening it if needed. Must be called on
+     * {@link AppExecutors#diskIO()}.
+     */
+    private SQLiteDatabase getDatabase() {
+        if (mDatabase == null) {
+            mDatabase = mDbHelper.getWritableDatabase();
+        }
+        return mDatabase;
+    }
 
-        db.close();
+    /**
+     * Returns the cached compiled statement for {@code sql}, compiling it on first use. Must be
+     * called on {@link AppExecutors#diskIO()}.
+     */
+    private SQLiteStatement getStatement(@NonNull String sql) {
+        SQLiteStatement statement = mStatements.get(sql);
+        if (statement == null) {
+            statement = getDatabase().compileStatement(sql);
+            mStatements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns the title of a team, or its description if it has none, reading the columns of the
+     * table aliased {@code alias}.
+     */
+    private static String titleForList(@NonNull String alias) {
+        String title = alias + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE;
+        return "CASE WHEN IFNULL(" + title + ", '') = ''" +
+                " THEN " + alias + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_DESCRIPTION +
+                " ELSE " + title + " END";
+    }
+
+    /**
+     * Returns the select of one rank of search results, joining the index to the teams.
+     */
+    private static String searchSelect() {
+        return "SELECT t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + " AS " +
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_ENTRY_ID + "," +
+                titleForList("t.") + " AS " +
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_TITLE_FOR_LIST + "," +
+                "t." + TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION + " AS " +
+                TeamsPersistenceContract.TeamEntry.COLUMN_NAME_CHAMPION +
+                " FROM " + TeamsPersistenceContract.SearchEntry.TABLE_NAME +
+                " JOIN " + TeamsPersistenceContract.TeamEntry.TABLE_NAME + " t" +
+                " ON t.rowid = " + TeamsPersistenceContract.SearchEntry.TABLE_NAME + "." +
+                TeamsPersistenceContract.SearchEntry.COLUMN_NAME_DOCID;
+    }
+
+    private static String championArg(@NonNull TeamsFilterType filterType) {
+        return filterType == TeamsFilterType.TOP_TEAMS ? "1" : "0";
+    }
+
+    /**
+     * Inserts or replaces {@code team}, with its description. Must be called on
+     * {@link AppExecutors#diskIO()}, inside a transaction.
+     */
+    private void writeTeam(@NonNull Team team) {
+        SQLiteStatement insert = getStatement(SQL_INSERT_TEAM);
+        insert.clearBindings();
+        insert.bindString(1, team.getId());
+        if (team.getTitle() != null) {
+            insert.bindString(2, team.getTitle());
+        }
+        String inlineDescription = TeamDescriptions.inlinePart(team.getDescription());
+        if (inlineDescription != null) {
+            insert.bindString(3, inlineDescription);
+        }
+        insert.bindLong(4, team.isChampion() ? 1 : 0);
+        insert.executeInsert();
+        writeDescription(team);
+    }
+
+    /**
+     * Stores the compressed description of {@code team} if it is a long one, and drops the one
+     * stored for it before otherwise. A long one is also indexed whole for search. Must be called
+     * on {@link AppExecutors#diskIO()}.
+     */
+    private void writeDescription(@NonNull Team team) {
+        String description = team.getDescription();
+        if (TeamDescriptions.isInline(description)) {
+            SQLiteStatement delete = getStatement(SQL_DELETE_DESCRIPTION);
+            delete.bindString(1, team.getId());
+            delete.executeUpdateDelete();
+        } else {
+            SQLiteStatement insert = getStatement(SQL_INSERT_DESCRIPTION);
+            insert.bindString(1, team.getId());
+            insert.bindBlob(2, TeamDescriptions.compress(description));
+            insert.executeInsert();
+            SQLiteStatement index = getStatement(TeamsDbHelper.SQL_INDEX_FULL_DESCRIPTION);
+            index.bindString(1, description);
+            index.bindString(2, team.getId());
+            index.executeUpdateDelete();
+        }
     }
 }
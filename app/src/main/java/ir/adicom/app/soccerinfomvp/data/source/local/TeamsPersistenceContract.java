@@ -34,5 +34,46 @@ public final class TeamsPersistenceContract {
         public static final String COLUMN_NAME_TITLE = "title";
         public static final String COLUMN_NAME_DESCRIPTION = "description";
         public static final String COLUMN_NAME_CHAMPION = "champion";
+        public static final String INDEX_NAME_CHAMPION = "teams_champion_index";
+        // Not stored: the title, or the description when there is none, as read for lists.
+        public static final String COLUMN_NAME_TITLE_FOR_LIST = "titleforlist";
+    }
+
+    /* Inner class that defines the compressed descriptions too long to keep in the teams table */
+    public static abstract class DescriptionEntry implements BaseColumns {
+        public static final String TABLE_NAME = "team_descriptions";
+        public static final String COLUMN_NAME_ENTRY_ID = "entryid";
+        public static final String COLUMN_NAME_BODY = "body";
+        public static final String TRIGGER_NAME_DELETE = "team_descriptions_delete";
+    }
+
+    /* Inner class that defines the full-text index of the teams, kept in sync by triggers */
+    public static abstract class SearchEntry {
+        public static final String TABLE_NAME = "teams_fts";
+        // The docid of a row is the rowid of its team.
+        public static final String COLUMN_NAME_DOCID = "docid";
+        public static final String COLUMN_NAME_TITLE = "title";
+        public static final String COLUMN_NAME_DESCRIPTION = "description";
+        public static final String TRIGGER_NAME_BEFORE_INSERT = "teams_fts_before_insert";
+        public static final String TRIGGER_NAME_AFTER_INSERT = "teams_fts_after_insert";
+        public static final String TRIGGER_NAME_AFTER_UPDATE = "teams_fts_after_update";
+        public static final String TRIGGER_NAME_AFTER_DELETE = "teams_fts_after_delete";
+    }
+
+    /* Inner class that defines the sync state, a single row */
+    public static abstract class SyncEntry implements BaseColumns {
+        public static final String TABLE_NAME = "sync_state";
+        public static final String COLUMN_NAME_VERSION = "version";
+    }
+
+    /* Inner class that defines the outbox of changes not sent to the backend yet */
+    public static abstract class OutboxEntry implements BaseColumns {
+        public static final String TABLE_NAME = "outbox";
+        public static final String COLUMN_NAME_TYPE = "type";
+        public static final String COLUMN_NAME_TEAM_ID = "teamid";
+        public static final String COLUMN_NAME_TITLE = "title";
+        public static final String COLUMN_NAME_DESCRIPTION = "description";
+        public static final String COLUMN_NAME_CHAMPION = "champion";
+        public static final String INDEX_NAME_TEAM_ID = "outbox_teamid_index";
     }
 }
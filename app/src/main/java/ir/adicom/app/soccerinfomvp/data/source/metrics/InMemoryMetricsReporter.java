@@ -0,0 +1,303 @@
+package ir.adicom.app.soccerinfomvp.data.source.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Default {@link MetricsReporter}, keeping the measurements in memory: a latency histogram, call,
+ * row and no-data counts, and an in-flight gauge per source and operation. Caches registered with
+ * {@link #trackCache(String, Supplier)} add their hit, miss and eviction counts.
+ * <p>
+ * Everything can be read back with {@link #getOperation(String, String)}, or dumped as JSON, once
+ * or periodically to logcat.
+ */
+public class InMemoryMetricsReporter implements MetricsReporter {
+
+    private static final String TAG = "TeamsMetrics";
+
+    private static InMemoryMetricsReporter INSTANCE = null;
+
+    private final ConcurrentMap<String, OperationStats> mOperations = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Supplier<CacheStats>> mCaches =
+            new ConcurrentHashMap<>();
+
+    @Nullable
+    private ScheduledFuture<?> mPeriodicDump;
+
+    @VisibleForTesting
+    InMemoryMetricsReporter() {
+    }
+
+    /**
+     * Returns the single instance of this class, creating it if necessary. Data sources live as
+     * long as the process, so their measurements do too.
+     */
+    public static InMemoryMetricsReporter getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new InMemoryMetricsReporter();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Includes the stats of a cache, e.g. {@code TeamsRepository#getCacheStats()}, in the dumps.
+     */
+    public void trackCache(@NonNull String name, @NonNull Supplier<CacheStats> stats) {
+        mCaches.put(checkNotNull(name), checkNotNull(stats));
+    }
+
+    @Override
+    public void onOperationStarted(@NonNull String source, @NonNull String operation) {
+        stats(source, operation).mInFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onOperationFinished(@NonNull String source, @NonNull String operation,
+                                    long latencyNanos, int rows, boolean dataAvailable) {
+        OperationStats stats = stats(source, operation);
+        stats.mInFlight.decrementAndGet();
+        stats.record(latencyNanos, rows, dataAvailable);
+    }
+
+    /**
+     * Returns what was recorded for {@code operation} on {@code source}, or null if it never
+     * started.
+     */
+    @Nullable
+    public OperationStats getOperation(@NonNull String source, @NonNull String operation) {
+        return mOperations.get(key(source, operation));
+    }
+
+    /**
+     * Forgets every measurement, but keeps the caches tracked. Operations in flight are still
+     * counted.
+     */
+    public void reset() {
+        for (OperationStats stats : mOperations.values()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Logs {@link #toJson()} every {@code period}, until {@link #stopPeriodicDump()}.
+     */
+    public synchronized void startPeriodicDump(long period, @NonNull TimeUnit unit) {
+        checkArgument(period > 0, "period must be positive");
+        if (mPeriodicDump != null) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("metrics-dump").setDaemon(true).build());
+        mPeriodicDump = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                Log.i(TAG, toJson());
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (mPeriodicDump != null) {
+            mPeriodicDump.cancel(false);
+            mPeriodicDump = null;
+        }
+    }
+
+    /**
+     * Returns every measurement as one JSON object, with operations sorted by source and name:
+     * <pre>
+     * {"operations":[{"source":"local","operation":"getTeams","count":3,"notAvailable":0,
+     *   "inFlight":0,"rows":120,"p50Micros":511,"p90Micros":1023,"p99Micros":1023,
+     *   "maxMicros":812}],
+     *  "caches":[{"name":"repository","hits":40,"misses":2,"evictions":0}]}
+     * </pre>
+     * Percentiles are the upper bounds of power-of-two buckets.
+     */
+    @NonNull
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"operations\":[");
+        boolean first = true;
+        for (Map.Entry<String, OperationStats> entry
+                : new TreeMap<>(mOperations).entrySet()) {
+            OperationStats stats = entry.getValue();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"source\":").append(quote(stats.mSource))
+                    .append(",\"operation\":").append(quote(stats.mOperation))
+                    .append(",\"count\":").append(stats.getCount())
+                    .append(",\"notAvailable\":").append(stats.getNotAvailableCount())
+                    .append(",\"inFlight\":").append(stats.getInFlight())
+                    .append(",\"rows\":").append(stats.getRows())
+                    .append(",\"p50Micros\":").append(stats.getLatencyPercentileMicros(50))
+                    .append(",\"p90Micros\":").append(stats.getLatencyPercentileMicros(90))
+                    .append(",\"p99Micros\":").append(stats.getLatencyPercentileMicros(99))
+                    .append(",\"maxMicros\":").append(stats.getMaxLatencyMicros())
+                    .append('}');
+        }
+        json.append("],\"caches\":[");
+        first = true;
+        for (Map.Entry<String, Supplier<CacheStats>> entry : new TreeMap<>(mCaches).entrySet()) {
+            CacheStats stats = entry.getValue().get();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"name\":").append(quote(entry.getKey()))
+                    .append(",\"hits\":").append(stats.hitCount())
+                    .append(",\"misses\":").append(stats.missCount())
+                    .append(",\"evictions\":").append(stats.evictionCount())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private OperationStats stats(String source, String operation) {
+        String key = key(checkNotNull(source), checkNotNull(operation));
+        OperationStats stats = mOperations.get(key);
+        if (stats == null) {
+            OperationStats created = new OperationStats(source, operation);
+            stats = mOperations.putIfAbsent(key, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    private static String key(String source, String operation) {
+        return source + '\u0000' + operation;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Measurements of one operation on one source. Updated without locking, so a read racing a
+     * write may see the count and the histogram one call apart.
+     */
+    public static final class OperationStats {
+
+        /**
+         * Bucket i holds latencies of less than 2^i microseconds and at least half that.
+         */
+        private static final int BUCKET_COUNT = 32;
+
+        private final String mSource;
+
+        private final String mOperation;
+
+        private final AtomicInteger mInFlight = new AtomicInteger();
+
+        private final AtomicLong mCount = new AtomicLong();
+
+        private final AtomicLong mNotAvailableCount = new AtomicLong();
+
+        private final AtomicLong mRows = new AtomicLong();
+
+        private final AtomicLong mMaxLatencyMicros = new AtomicLong();
+
+        private final AtomicLongArray mLatencyBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+        private OperationStats(String source, String operation) {
+            mSource = source;
+            mOperation = operation;
+        }
+
+        private void record(long latencyNanos, int rows, boolean dataAvailable) {
+            long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+            mLatencyBuckets.incrementAndGet(bucket);
+            mCount.incrementAndGet();
+            mRows.addAndGet(rows);
+            if (!dataAvailable) {
+                mNotAvailableCount.incrementAndGet();
+            }
+            long max = mMaxLatencyMicros.get();
+            while (micros > max && !mMaxLatencyMicros.compareAndSet(max, micros)) {
+                max = mMaxLatencyMicros.get();
+            }
+        }
+
+        private void reset() {
+            mCount.set(0);
+            mNotAvailableCount.set(0);
+            mRows.set(0);
+            mMaxLatencyMicros.set(0);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mLatencyBuckets.set(i, 0);
+            }
+        }
+
+        public int getInFlight() {
+            return mInFlight.get();
+        }
+
+        public long getCount() {
+            return mCount.get();
+        }
+
+        /**
+         * Returns how many calls found no data, or failed.
+         */
+        public long getNotAvailableCount() {
+            return mNotAvailableCount.get();
+        }
+
+        /**
+         * Returns the number of teams delivered by every call together.
+         */
+        public long getRows() {
+            return mRows.get();
+        }
+
+        public long getMaxLatencyMicros() {
+            return mMaxLatencyMicros.get();
+        }
+
+        /**
+         * Returns an upper bound of the {@code percentile}th latency, or 0 if nothing was
+         * recorded.
+         */
+        public long getLatencyPercentileMicros(int percentile) {
+            checkArgument(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                total += mLatencyBuckets.get(i);
+            }
+            long rank = (total * percentile + 99) / 100;
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mLatencyBuckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return (1L << i) - 1;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package ir.adicom.app.soccerinfomvp.data.source.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+import ir.adicom.app.soccerinfomvp.data.source.TeamsDataSource;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+import ir.adicom.app.soccerinfomvp.util.tracing.Span;
+import ir.adicom.app.soccerinfomvp.util.tracing.Tracing;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decorator measuring every call made to a {@link TeamsDataSource}: its latency, the number of
+ * teams it delivered and whether data was available, reported to a {@link MetricsReporter} under
+ * the source's name and the method's name.
+ * <p>
+ * Reads are timed until their callback runs. Writes are timed until they return, which for an
+ * asynchronous data source only covers handing the work off.
+ * <p>
+ * Each call is also a tracing {@link Span}, named after the source and the method, in the trace
+ * of the caller.
+ */
+public class InstrumentedTeamsDataSource implements TeamsDataSource {
+
+    private final String mName;
+
+    private final TeamsDataSource mDelegate;
+
+    private final MetricsReporter mReporter;
+
+    /**
+     * @param name     the source the measurements are reported under, e.g. "local"
+     * @param delegate the data source doing the work
+     * @param reporter where the measurements go
+     */
+    public InstrumentedTeamsDataSource(@NonNull String name, @NonNull TeamsDataSource delegate,
+                                       @NonNull MetricsReporter reporter) {
+        mName = checkNotNull(name);
+        mDelegate = checkNotNull(delegate);
+        mReporter = checkNotNull(reporter);
+    }
+
+    @Override
+    public void getTeams(@NonNull LoadTeamsCallback callback) {
+        Operation operation = start("getTeams");
+        try {
+            mDelegate.getTeams(measure(operation, callback));
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void getTeams(@NonNull TeamsFilterType filterType,
+                         @NonNull LoadTeamsCallback callback) {
+        Operation operation = start("getTeams/" + filterType);
+        try {
+            mDelegate.getTeams(filterType, measure(operation, callback));
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                             int pageSize, @NonNull LoadTeamsCallback callback) {
+        Operation operation = start("getTeamsPage/" + filterType);
+        try {
+            mDelegate.getTeamsPage(filterType, afterTeamId, pageSize,
+                    measure(operation, callback));
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType,
+                            int offset, int pageSize, @NonNull LoadTeamsCallback callback) {
+        Operation operation = start("searchTeams/" + filterType);
+        try {
+            mDelegate.searchTeams(query, filterType, offset, pageSize,
+                    measure(operation, callback));
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void getTeam(@NonNull String teamId, @NonNull final GetTeamCallback callback) {
+        checkNotNull(callback);
+        final Operation operation = start("getTeam");
+        try {
+            mDelegate.getTeam(teamId, new GetTeamCallback() {
+                @Override
+                public void onTeamLoaded(Team team) {
+                    operation.finish(1, true);
+                    callback.onTeamLoaded(team);
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    operation.finish(0, false);
+                    callback.onDataNotAvailable();
+                }
+            });
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void getTeamChanges(long sinceVersion,
+                               @NonNull final LoadTeamChangesCallback callback) {
+        checkNotNull(callback);
+        final Operation operation = start("getTeamChanges");
+        try {
+            mDelegate.getTeamChanges(sinceVersion, new LoadTeamChangesCallback() {
+                @Override
+                public void onTeamChangesLoaded(TeamChanges changes) {
+                    operation.finish(changes.getUpdatedTeams().size(), true);
+                    callback.onTeamChangesLoaded(changes);
+                }
+
+                @Override
+                public void onDataNotAvailable() {
+                    operation.finish(0, false);
+                    callback.onDataNotAvailable();
+                }
+            });
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void getSyncVersion(@NonNull final GetSyncVersionCallback callback) {
+        checkNotNull(callback);
+        final Operation operation = start("getSyncVersion");
+        try {
+            mDelegate.getSyncVersion(new GetSyncVersionCallback() {
+                @Override
+                public void onSyncVersionLoaded(long version) {
+                    operation.finish(0, true);
+                    callback.onSyncVersionLoaded(version);
+                }
+            });
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void applyTeamChanges(@NonNull TeamChanges changes) {
+        Operation operation = start("applyTeamChanges");
+        try {
+            mDelegate.applyTeamChanges(changes);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                  @NonNull final PushTeamMutationsCallback callback) {
+        checkNotNull(callback);
+        final Operation operation = start("pushTeamMutations");
+        try {
+            mDelegate.pushTeamMutations(mutations, new PushTeamMutationsCallback() {
+                @Override
+                public void onTeamMutationsPushed() {
+                    operation.finish(0, true);
+                    callback.onTeamMutationsPushed();
+                }
+
+                @Override
+                public void onPushFailed() {
+                    operation.finish(0, false);
+                    callback.onPushFailed();
+                }
+            });
+        } finally {
+            operation.leave();
+        }
+    }
+
+    @Override
+    public void saveTeam(@NonNull Team team) {
+        Operation operation = start("saveTeam");
+        try {
+            mDelegate.saveTeam(team);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void replaceAllTeams(@NonNull List<Team> teams) {
+        Operation operation = start("replaceAllTeams");
+        try {
+            mDelegate.replaceAllTeams(teams);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void championTeam(@NonNull Team team) {
+        Operation operation = start("championTeam");
+        try {
+            mDelegate.championTeam(team);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void championTeam(@NonNull String teamId) {
+        Operation operation = start("championTeam");
+        try {
+            mDelegate.championTeam(teamId);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void normalTeam(@NonNull Team team) {
+        Operation operation = start("normalTeam");
+        try {
+            mDelegate.normalTeam(team);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void normalTeam(@NonNull String teamId) {
+        Operation operation = start("normalTeam");
+        try {
+            mDelegate.normalTeam(teamId);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void clearChampionTeams() {
+        Operation operation = start("clearChampionTeams");
+        try {
+            mDelegate.clearChampionTeams();
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void refreshTeams() {
+        Operation operation = start("refreshTeams");
+        try {
+            mDelegate.refreshTeams();
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void deleteAllTeams() {
+        Operation operation = start("deleteAllTeams");
+        try {
+            mDelegate.deleteAllTeams();
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    @Override
+    public void deleteTeam(@NonNull String teamId) {
+        Operation operation = start("deleteTeam");
+        try {
+            mDelegate.deleteTeam(teamId);
+        } finally {
+            operation.leave();
+        }
+        operation.finish(0, true);
+    }
+
+    private LoadTeamsCallback measure(final Operation operation,
+                                      final LoadTeamsCallback callback) {
+        checkNotNull(callback);
+        return new LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+                operation.finish(teams.size(), true);
+                callback.onTeamsLoaded(teams);
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+                operation.finish(0, false);
+                callback.onDataNotAvailable();
+            }
+        };
+    }
+
+    /**
+     * Starts measuring {@code name}. Its span is current until {@link Operation#leave()}, so work
+     * the delegate starts is traced as part of it.
+     */
+    private Operation start(String name) {
+        mReporter.onOperationStarted(mName, name);
+        return new Operation(name, Tracing.startSpan(mName + "." + name));
+    }
+
+    private final class Operation {
+
+        private final String mOperationName;
+
+        private final Span mSpan;
+
+        private final Span.Scope mScope;
+
+        private final long mStartNanos;
+
+        Operation(String operationName, Span span) {
+            mOperationName = operationName;
+            mSpan = span;
+            mScope = span.makeCurrent();
+            mStartNanos = System.nanoTime();
+        }
+
+        void leave() {
+            mScope.close();
+        }
+
+        void finish(int rows, boolean dataAvailable) {
+            mSpan.end();
+            mReporter.onOperationFinished(mName, mOperationName,
+                    System.nanoTime() - mStartNanos, rows, dataAvailable);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ir.adicom.app.soccerinfomvp.data.source.metrics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives the measurements taken by {@link InstrumentedTeamsDataSource}.
+ * <p>
+ * Operations start and finish on whatever threads the data source uses, so implementations must
+ * be thread-safe, and cheap enough to call on the main thread.
+ */
+public interface MetricsReporter {
+
+    void onOperationStarted(@NonNull String source, @NonNull String operation);
+
+    /**
+     * @param latencyNanos  time from the call to the callback, or to the return for writes
+     * @param rows          number of teams delivered, 0 if none
+     * @param dataAvailable false if the data source had no data, or the operation failed
+     */
+    void onOperationFinished(@NonNull String source, @NonNull String operation,
+                             long latencyNanos, int rows, boolean dataAvailable);
+}
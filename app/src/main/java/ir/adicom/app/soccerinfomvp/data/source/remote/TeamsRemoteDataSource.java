@@ -1,16 +1,28 @@
 package ir.adicom.app.soccerinfomvp.data.source.remote;
 
-import android.os.Handler;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
-import com.google.common.collect.Lists;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
 import ir.adicom.app.soccerinfomvp.data.source.TeamsDataSource;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+import ir.adicom.app.soccerinfomvp.util.AppExecutors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Implementation of the data source that adds a latency simulating network.
@@ -21,27 +33,78 @@ public class TeamsRemoteDataSource implements TeamsDataSource {
 
     private static final int SERVICE_LATENCY_IN_MILLIS = 5000;
 
+    /**
+     * Number of tombstones kept. Clients older than the oldest one get a full snapshot.
+     */
+    private static final int MAX_TOMBSTONES = 100;
+
     private final static Map<String, Team> TEAMS_SERVICE_DATA;
 
+    /**
+     * Version at which each team was last written.
+     */
+    private final static Map<String, Long> TEAM_VERSIONS;
+
+    /**
+     * Version at which each deleted team was deleted, oldest first.
+     */
+    private final static Map<String, Long> TOMBSTONES;
+
+    /**
+     * Version of the last change made to the service data.
+     */
+    private static long sVersion = TeamChanges.NO_VERSION;
+
+    /**
+     * Deltas can only be computed from this version on, older tombstones have been dropped.
+     */
+    private static long sOldestDeltaVersion = TeamChanges.NO_VERSION;
+
     static {
         TEAMS_SERVICE_DATA = new LinkedHashMap<>(2);
+        TEAM_VERSIONS = new HashMap<>(2);
+        TOMBSTONES = new LinkedHashMap<>();
         addTeam("Build tower in Pisa", "Ground looks good, no foundation work required.");
         addTeam("Finish bridge in Tacoma", "Found awesome girders at half the cost!");
     }
 
-    public static TeamsRemoteDataSource getInstance() {
+    private final AppExecutors mAppExecutors;
+
+    public static TeamsRemoteDataSource getInstance(@NonNull AppExecutors appExecutors) {
         if (INSTANCE == null) {
-            INSTANCE = new TeamsRemoteDataSource();
+            INSTANCE = new TeamsRemoteDataSource(appExecutors);
         }
         return INSTANCE;
     }
 
     // Prevent direct instantiation.
-    private TeamsRemoteDataSource() {}
+    private TeamsRemoteDataSource(@NonNull AppExecutors appExecutors) {
+        mAppExecutors = checkNotNull(appExecutors);
+    }
 
     private static void addTeam(String title, String description) {
-        Team newTeam = new Team(title, description);
-        TEAMS_SERVICE_DATA.put(newTeam.getId(), newTeam);
+        putTeam(new Team(title, description));
+    }
+
+    private static void putTeam(@NonNull Team team) {
+        sVersion++;
+        TEAMS_SERVICE_DATA.put(team.getId(), team);
+        TEAM_VERSIONS.put(team.getId(), sVersion);
+        TOMBSTONES.remove(team.getId());
+    }
+
+    private static void removeTeam(@NonNull String teamId) {
+        if (TEAMS_SERVICE_DATA.remove(teamId) == null) {
+            return;
+        }
+        sVersion++;
+        TEAM_VERSIONS.remove(teamId);
+        TOMBSTONES.put(teamId, sVersion);
+        if (TOMBSTONES.size() > MAX_TOMBSTONES) {
+            Iterator<Map.Entry<String, Long>> oldest = TOMBSTONES.entrySet().iterator();
+            sOldestDeltaVersion = oldest.next().getValue();
+            oldest.remove();
+        }
     }
 
     /**
@@ -51,14 +114,73 @@ public class TeamsRemoteDataSource implements TeamsDataSource {
      */
     @Override
     public void getTeams(final @NonNull LoadTeamsCallback callback) {
+        getTeams(TeamsFilterType.ALL_TEAMS, callback);
+    }
+
+    /**
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is never fired. In a real remote data
+     * source implementation, the filter would be sent to the server as a query parameter.
+     */
+    @Override
+    public void getTeams(@NonNull TeamsFilterType filterType,
+                         final @NonNull LoadTeamsCallback callback) {
+        final List<Team> teams = new ArrayList<>(TEAMS_SERVICE_DATA.size());
+        for (Team team : TEAMS_SERVICE_DATA.values()) {
+            if (filterType == TeamsFilterType.ALL_TEAMS
+                    || (filterType == TeamsFilterType.TOP_TEAMS) == team.isChampion()) {
+                teams.add(team);
+            }
+        }
+
         // Simulate network by delaying the execution.
-        Handler handler = new Handler();
-        handler.postDelayed(new Runnable() {
+        deliverAfterLatency(new Runnable() {
             @Override
             public void run() {
-                callback.onTeamsLoaded(Lists.newArrayList(TEAMS_SERVICE_DATA.values()));
+                callback.onTeamsLoaded(teams);
             }
-        }, SERVICE_LATENCY_IN_MILLIS);
+        });
+    }
+
+    /**
+     * Note: {@link LoadTeamsCallback#onDataNotAvailable()} is fired once no team is left after
+     * {@code afterTeamId}.
+     */
+    @Override
+    public void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                             int pageSize, final @NonNull LoadTeamsCallback callback) {
+        List<Team> sorted = new ArrayList<>(TEAMS_SERVICE_DATA.values());
+        Collections.sort(sorted, new Comparator<Team>() {
+            @Override
+            public int compare(Team lhs, Team rhs) {
+                return lhs.getId().compareTo(rhs.getId());
+            }
+        });
+
+        final List<Team> page = new ArrayList<>(pageSize);
+        for (Team team : sorted) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            if (afterTeamId != null && team.getId().compareTo(afterTeamId) <= 0) {
+                continue;
+            }
+            if (filterType == TeamsFilterType.ALL_TEAMS
+                    || (filterType == TeamsFilterType.TOP_TEAMS) == team.isChampion()) {
+                page.add(team);
+            }
+        }
+
+        // Simulate network by delaying the execution.
+        deliverAfterLatency(new Runnable() {
+            @Override
+            public void run() {
+                if (page.isEmpty()) {
+                    callback.onDataNotAvailable();
+                } else {
+                    callback.onTeamsLoaded(page);
+                }
+            }
+        });
     }
 
     /**
@@ -71,51 +193,193 @@ public class TeamsRemoteDataSource implements TeamsDataSource {
         final Team team = TEAMS_SERVICE_DATA.get(teamId);
 
         // Simulate network by delaying the execution.
-        Handler handler = new Handler();
-        handler.postDelayed(new Runnable() {
+        deliverAfterLatency(new Runnable() {
             @Override
             public void run() {
                 callback.onTeamLoaded(team);
             }
-        }, SERVICE_LATENCY_IN_MILLIS);
+        });
+    }
+
+    @Override
+    public void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType,
+                            int offset, int pageSize, @NonNull LoadTeamsCallback callback) {
+        // Not required because the {@link TeamsRepository} searches the local data source, which
+        // has the full-text index.
+        callback.onDataNotAvailable();
+    }
+
+    /**
+     * Sends the teams written and deleted after {@code sinceVersion}. A client that never synced,
+     * is older than the oldest tombstone kept, or is ahead of the service gets a full snapshot.
+     * <p>
+     * Note: {@link LoadTeamChangesCallback#onDataNotAvailable()} is never fired. In a real remote
+     * data source implementation, this would be fired if the server can't be contacted or the
+     * server returns an error.
+     */
+    @Override
+    public void getTeamChanges(long sinceVersion,
+                               final @NonNull LoadTeamChangesCallback callback) {
+        final TeamChanges changes;
+        if (sinceVersion == TeamChanges.NO_VERSION || sinceVersion < sOldestDeltaVersion
+                || sinceVersion > sVersion) {
+            changes = TeamChanges.fullSnapshot(sVersion,
+                    new ArrayList<>(TEAMS_SERVICE_DATA.values()));
+        } else {
+            List<Team> updated = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : TEAM_VERSIONS.entrySet()) {
+                if (entry.getValue() > sinceVersion) {
+                    updated.add(TEAMS_SERVICE_DATA.get(entry.getKey()));
+                }
+            }
+            List<String> deleted = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : TOMBSTONES.entrySet()) {
+                if (entry.getValue() > sinceVersion) {
+                    deleted.add(entry.getKey());
+                }
+            }
+            changes = TeamChanges.delta(sVersion, updated, deleted);
+        }
+
+        // Simulate network by delaying the execution.
+        deliverAfterLatency(new Runnable() {
+            @Override
+            public void run() {
+                callback.onTeamChangesLoaded(changes);
+            }
+        });
+    }
+
+    @Override
+    public void getSyncVersion(@NonNull GetSyncVersionCallback callback) {
+        // The service is the source of the versions, it is always up to date.
+        callback.onSyncVersionLoaded(sVersion);
+    }
+
+    @Override
+    public void applyTeamChanges(@NonNull TeamChanges changes) {
+        // Not required because the {@link TeamsRepository} only pulls changes from the service.
+    }
+
+    /**
+     * Applies the whole batch for the cost of a single round-trip.
+     * <p>
+     * Note: {@link PushTeamMutationsCallback#onPushFailed()} is never fired. In a real remote data
+     * source implementation, this would be fired if the server can't be contacted or the server
+     * returns an error.
+     */
+    @Override
+    public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                  final @NonNull PushTeamMutationsCallback callback) {
+        for (TeamMutation mutation : mutations) {
+            applyMutation(mutation);
+        }
+
+        // Simulate network by delaying the execution.
+        deliverAfterLatency(new Runnable() {
+            @Override
+            public void run() {
+                callback.onTeamMutationsPushed();
+            }
+        });
+    }
+
+    private void applyMutation(@NonNull TeamMutation mutation) {
+        Team team = mutation.getTeamId() == null ? null : TEAMS_SERVICE_DATA.get(mutation.getTeamId());
+        switch (mutation.getType()) {
+            case SAVE:
+                saveTeam(mutation.getTeam());
+                break;
+            case CHAMPION:
+                if (team != null) {
+                    championTeam(team);
+                }
+                break;
+            case NORMAL:
+                if (team != null) {
+                    normalTeam(team);
+                }
+                break;
+            case DELETE:
+                deleteTeam(mutation.getTeamId());
+                break;
+            case CLEAR_CHAMPIONS:
+                clearChampionTeams();
+                break;
+            case DELETE_ALL:
+                deleteAllTeams();
+                break;
+        }
+    }
+
+    /**
+     * Waits for {@link #SERVICE_LATENCY_IN_MILLIS} on {@link AppExecutors#networkIO()} and then
+     * runs {@code delivery} on the main thread.
+     */
+    private void deliverAfterLatency(@NonNull final Runnable delivery) {
+        mAppExecutors.networkIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                SystemClock.sleep(SERVICE_LATENCY_IN_MILLIS);
+                mAppExecutors.mainThread().execute(delivery);
+            }
+        });
     }
 
     @Override
     public void saveTeam(@NonNull Team team) {
-        TEAMS_SERVICE_DATA.put(team.getId(), team);
+        putTeam(team);
+    }
+
+    @Override
+    public void replaceAllTeams(@NonNull List<Team> teams) {
+        Set<String> keptIds = new HashSet<>(teams.size());
+        for (Team team : teams) {
+            keptIds.add(team.getId());
+        }
+        for (String teamId : new ArrayList<>(TEAMS_SERVICE_DATA.keySet())) {
+            if (!keptIds.contains(teamId)) {
+                removeTeam(teamId);
+            }
+        }
+        for (Team team : teams) {
+            putTeam(team);
+        }
     }
 
     @Override
     public void championTeam(@NonNull Team team) {
-        Team completedTeam = new Team(team.getTitle(), team.getDescription(), team.getId(), true);
-        TEAMS_SERVICE_DATA.put(team.getId(), completedTeam);
+        championTeam(team.getId());
     }
 
     @Override
     public void championTeam(@NonNull String teamId) {
-        // Not required for the remote data source because the {@link TeamsRepository} handles
-        // converting from a {@code teamId} to a {@link team} using its cached data.
+        // Only the flag changes, the stored title and description are kept.
+        Team team = TEAMS_SERVICE_DATA.get(teamId);
+        if (team != null) {
+            putTeam(team.withChampion(true));
+        }
     }
 
     @Override
     public void normalTeam(@NonNull Team team) {
-        Team activeTeam = new Team(team.getTitle(), team.getDescription(), team.getId());
-        TEAMS_SERVICE_DATA.put(team.getId(), activeTeam);
+        normalTeam(team.getId());
     }
 
     @Override
     public void normalTeam(@NonNull String teamId) {
-        // Not required for the remote data source because the {@link TeamsRepository} handles
-        // converting from a {@code teamId} to a {@link team} using its cached data.
+        // Only the flag changes, the stored title and description are kept.
+        Team team = TEAMS_SERVICE_DATA.get(teamId);
+        if (team != null) {
+            putTeam(team.withChampion(false));
+        }
     }
 
     @Override
     public void clearChampionTeams() {
-        Iterator<Map.Entry<String, Team>> it = TEAMS_SERVICE_DATA.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<String, Team> entry = it.next();
-            if (entry.getValue().isChampion()) {
-                it.remove();
+        for (Team team : new ArrayList<>(TEAMS_SERVICE_DATA.values())) {
+            if (team.isChampion()) {
+                removeTeam(team.getId());
             }
         }
     }
@@ -128,11 +392,13 @@ public class TeamsRemoteDataSource implements TeamsDataSource {
 
     @Override
     public void deleteAllTeams() {
-        TEAMS_SERVICE_DATA.clear();
+        for (String teamId : new ArrayList<>(TEAMS_SERVICE_DATA.keySet())) {
+            removeTeam(teamId);
+        }
     }
 
     @Override
     public void deleteTeam(@NonNull String teamId) {
-        TEAMS_SERVICE_DATA.remove(teamId);
+        removeTeam(teamId);
     }
 }
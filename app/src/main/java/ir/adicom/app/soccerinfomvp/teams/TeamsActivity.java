@@ -11,11 +11,10 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import android.view.MenuItem;
 
+import ir.adicom.app.soccerinfomvp.Injection;
 import ir.adicom.app.soccerinfomvp.R;
-import ir.adicom.app.soccerinfomvp.data.source.TeamsRepository;
-import ir.adicom.app.soccerinfomvp.data.source.local.TeamsLocalDataSource;
-import ir.adicom.app.soccerinfomvp.data.source.remote.TeamsRemoteDataSource;
 import ir.adicom.app.soccerinfomvp.util.ActivityUtils;
+import ir.adicom.app.soccerinfomvp.util.StartupTimeline;
 
 public class TeamsActivity extends AppCompatActivity {
 
@@ -57,8 +56,10 @@ public class TeamsActivity extends AppCompatActivity {
 
         // Create the presenter
         mTeamPresenter = new TeamsPresenter(
-                TeamsRepository.getInstance(TeamsRemoteDataSource.getInstance(),
-                        TeamsLocalDataSource.getInstance(getApplicationContext())), teamsFragment);
+                Injection.provideTeamsRepository(getApplicationContext()), teamsFragment,
+                Injection.provideTeamsListSnapshot(getApplicationContext()),
+                Injection.provideAppExecutors());
+        StartupTimeline.getInstance().mark("activity created");
 
         // Load previously saved state, if available.
         if (savedInstanceState != null) {
@@ -0,0 +1,272 @@
+package ir.adicom.app.soccerinfomvp.teams;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.TextView;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import ir.adicom.app.soccerinfomvp.R;
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Adapter for the list of teams in {@link TeamsFragment}.
+ * <p>
+ * Each new list is turned into fine-grained updates. Diffs are computed on a background thread,
+ * so only the rows that changed are rebound. Binding a row allocates nothing: rows share the
+ * click listeners, which read the team from the row's holder, and each holder keeps its own
+ * copies of both backgrounds, made once from their constant states.
+ */
+class TeamsAdapter extends RecyclerView.Adapter<TeamsAdapter.ViewHolder> {
+
+    /**
+     * Shared by every adapter: diffs are short and one at a time is enough.
+     */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("teams-diff").setDaemon(true).build());
+
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Resolved on the first row created. Each holder gets its own drawables from them, since
+     * drawables keep view state.
+     */
+    @Nullable
+    private Drawable.ConstantState mNormalBackground;
+
+    @Nullable
+    private Drawable.ConstantState mChampionBackground;
+
+    private final TeamsFragment.TeamItemListener mItemListener;
+
+    /**
+     * The teams shown. Not modified while a diff against it runs.
+     */
+    private List<Team> mTeams;
+
+    /**
+     * Incremented by each {@link #replaceData(List)}, so a diff that finishes after a newer
+     * one was started is dropped.
+     */
+    private int mGeneration;
+
+    /**
+     * Pages appended while a diff runs, or null if none runs. They follow the list being
+     * diffed, so they are added once it is shown.
+     */
+    @Nullable
+    private List<Team> mPendingAppends;
+
+    private final TeamsDiff.UpdateCallback mUpdateCallback = new TeamsDiff.UpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            notifyItemRangeChanged(position, count);
+        }
+    };
+
+    TeamsAdapter(List<Team> tasks, TeamsFragment.TeamItemListener itemListener) {
+        // Copied because pages get appended to it.
+        mTeams = new ArrayList<>(checkNotNull(tasks));
+        mItemListener = itemListener;
+        setHasStableIds(true);
+    }
+
+    void replaceData(List<Team> tasks) {
+        final List<Team> newTeams = new ArrayList<>(checkNotNull(tasks));
+        final int generation = ++mGeneration;
+        if (mTeams.isEmpty() || newTeams.isEmpty()) {
+            // Nothing to diff.
+            mPendingAppends = null;
+            int removed = mTeams.size();
+            mTeams = newTeams;
+            if (removed > 0) {
+                notifyItemRangeRemoved(0, removed);
+            }
+            if (!newTeams.isEmpty()) {
+                notifyItemRangeInserted(0, newTeams.size());
+            }
+            return;
+        }
+        mPendingAppends = new ArrayList<>();
+        final List<Team> oldTeams = mTeams;
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final TeamsDiff diff = TeamsDiff.calculate(oldTeams, newTeams);
+                mMainThreadHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mTeams = newTeams;
+                        diff.dispatchUpdatesTo(mUpdateCallback);
+                        List<Team> appended = mPendingAppends;
+                        mPendingAppends = null;
+                        appendData(appended);
+                    }
+                });
+            }
+        });
+    }
+
+    void appendData(List<Team> tasks) {
+        checkNotNull(tasks);
+        if (mPendingAppends != null) {
+            mPendingAppends.addAll(tasks);
+            return;
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        int start = mTeams.size();
+        mTeams.addAll(tasks);
+        notifyItemRangeInserted(start, tasks.size());
+    }
+
+    @Override
+    public int getItemCount() {
+        return mTeams.size();
+    }
+
+    /**
+     * Derived from {@link Team#getId()}, so a row keeps its id when the team moves.
+     */
+    @Override
+    public long getItemId(int position) {
+        return stableId(mTeams.get(position).getId());
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of {@code teamId}. Unlike a Guava hasher it allocates
+     * nothing, and {@link #getItemId(int)} is called on every bind.
+     */
+    @VisibleForTesting
+    static long stableId(String teamId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < teamId.length(); i++) {
+            hash ^= teamId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        Context context = parent.getContext();
+        if (mNormalBackground == null) {
+            mNormalBackground = ContextCompat.getDrawable(context, R.drawable.touch_feedback)
+                    .getConstantState();
+            mChampionBackground = ContextCompat.getDrawable(context,
+                    R.drawable.list_champion_touch_feedback).getConstantState();
+        }
+        View itemView = LayoutInflater.from(context).inflate(R.layout.team_item, parent, false);
+        ViewHolder holder = new ViewHolder(itemView,
+                mNormalBackground.newDrawable(context.getResources()),
+                mChampionBackground.newDrawable(context.getResources()));
+        itemView.setOnClickListener(mRowClickListener);
+        holder.mCompleteView.setOnClickListener(mCompleteClickListener);
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        Team team = mTeams.get(position);
+        holder.mTeam = team;
+        holder.mTitleView.setText(team.getTitleForList());
+
+        // Active/champion task UI
+        holder.mCompleteView.setChecked(team.isChampion());
+        holder.showChampion(team.isChampion());
+    }
+
+    private final View.OnClickListener mRowClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View view) {
+            mItemListener.onTeamClick(((ViewHolder) view.getTag()).mTeam);
+        }
+    };
+
+    private final View.OnClickListener mCompleteClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View view) {
+            Team team = ((ViewHolder) view.getTag()).mTeam;
+            if (!team.isChampion()) {
+                mItemListener.onCompleteTeamClick(team);
+            } else {
+                mItemListener.onNormalTeamClick(team);
+            }
+        }
+    };
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+
+        final TextView mTitleView;
+
+        final CheckBox mCompleteView;
+
+        private final Drawable mNormalBackground;
+
+        private final Drawable mChampionBackground;
+
+        /**
+         * The team bound to this row, read by the shared click listeners.
+         */
+        Team mTeam;
+
+        @Nullable
+        private Boolean mShowsChampion;
+
+        ViewHolder(View itemView, Drawable normalBackground, Drawable championBackground) {
+            super(itemView);
+            mTitleView = (TextView) itemView.findViewById(R.id.title);
+            mCompleteView = (CheckBox) itemView.findViewById(R.id.complete);
+            mNormalBackground = normalBackground;
+            mChampionBackground = championBackground;
+            itemView.setTag(this);
+            mCompleteView.setTag(this);
+        }
+
+        /**
+         * Sets the row background, unless it already shows the right one.
+         */
+        void showChampion(boolean champion) {
+            if (mShowsChampion == null || mShowsChampion != champion) {
+                itemView.setBackgroundDrawable(champion ? mChampionBackground : mNormalBackground);
+                mShowsChampion = champion;
+            }
+        }
+    }
+}
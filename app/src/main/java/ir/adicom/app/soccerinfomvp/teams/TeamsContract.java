@@ -19,6 +19,11 @@ public interface TeamsContract {
 
         void showTeams(List<Team> teams);
 
+        /**
+         * Appends the next page of teams to the ones already shown.
+         */
+        void showMoreTeams(List<Team> teams);
+
         void showAddTeam();
 
         void showTeamDetailsUi(String teamId);
@@ -52,10 +57,27 @@ public interface TeamsContract {
 
     interface Presenter extends BasePresenter {
 
+        /**
+         * Stops following the changes made to the teams, until the next {@link #start()}. Called
+         * when the view pauses or is destroyed, so the repository doesn't keep it alive.
+         */
+        void stop();
+
         void result(int requestCode, int resultCode);
 
         void loadTeams(boolean forceUpdate);
 
+        /**
+         * Loads the page after the teams already shown, if there is one.
+         */
+        void loadMoreTeams();
+
+        /**
+         * Shows only the teams with a word starting with each word of {@code query}, or the
+         * loaded pages again if it is blank. Called as the user types.
+         */
+        void filterTeams(@NonNull String query);
+
         void addNewTeam();
 
         void openTeamDetails(@NonNull Team requestedTeam);
@@ -0,0 +1,269 @@
+package ir.adicom.app.soccerinfomvp.teams;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+/**
+ * Difference between two lists of teams, matched by {@link Team#getId()}, as the insert, remove,
+ * move and change notifications that turn the old list into the new one.
+ * <p>
+ * Teams kept in the longest run that is already in order stay put, so a team moved across the
+ * list costs one move. Computing a diff takes no lock and touches no view, so it can run off the
+ * main thread; {@link #dispatchUpdatesTo(UpdateCallback)} must then run where the adapter lives.
+ */
+final class TeamsDiff {
+
+    /**
+     * Receives the updates in order. Positions are valid at the time of each call, as
+     * {@code RecyclerView.Adapter}'s notify methods expect.
+     */
+    interface UpdateCallback {
+
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count);
+    }
+
+    private static final int INSERT = 0;
+
+    private static final int REMOVE = 1;
+
+    private static final int MOVE = 2;
+
+    private static final int CHANGE = 3;
+
+    /**
+     * Flattened updates: a kind followed by its two arguments.
+     */
+    private final int[] mUpdates;
+
+    private final int mUpdateCount;
+
+    private TeamsDiff(int[] updates, int updateCount) {
+        mUpdates = updates;
+        mUpdateCount = updateCount;
+    }
+
+    /**
+     * Computes the updates turning {@code oldTeams} into {@code newTeams}. Ids must be unique
+     * within each list.
+     */
+    @NonNull
+    static TeamsDiff calculate(@NonNull List<Team> oldTeams, @NonNull List<Team> newTeams) {
+        Builder updates = new Builder();
+
+        Map<String, Integer> newPositions = new HashMap<>(newTeams.size() * 2);
+        for (int i = 0; i < newTeams.size(); i++) {
+            newPositions.put(newTeams.get(i).getId(), i);
+        }
+
+        // Removals, from the end so earlier positions stay valid.
+        List<String> current = new ArrayList<>(oldTeams.size());
+        for (int i = oldTeams.size() - 1; i >= 0; i--) {
+            if (!newPositions.containsKey(oldTeams.get(i).getId())) {
+                updates.remove(i);
+            }
+        }
+        for (Team team : oldTeams) {
+            if (newPositions.containsKey(team.getId())) {
+                current.add(team.getId());
+            }
+        }
+
+        // Teams already in order relative to each other are never moved.
+        int[] targets = new int[current.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = newPositions.get(current.get(i));
+        }
+        Set<String> stable = new HashSet<>();
+        for (int i : longestIncreasingRun(targets)) {
+            stable.add(current.get(i));
+        }
+        Set<String> kept = new HashSet<>(current);
+
+        // Walk the new list backwards, placing each team just before the one after it. The teams
+        // already placed then form a block in their final order.
+        for (int i = newTeams.size() - 1; i >= 0; i--) {
+            String id = newTeams.get(i).getId();
+            if (stable.contains(id)) {
+                continue;
+            }
+            int anchor = i + 1 < newTeams.size()
+                    ? current.indexOf(newTeams.get(i + 1).getId()) : current.size();
+            if (kept.contains(id)) {
+                int from = current.indexOf(id);
+                int to = from < anchor ? anchor - 1 : anchor;
+                if (from != to) {
+                    current.remove(from);
+                    current.add(to, id);
+                    updates.move(from, to);
+                }
+            } else {
+                current.add(anchor, id);
+                updates.insert(anchor);
+            }
+        }
+
+        // The list now matches newTeams, so changes use its positions.
+        Map<String, Team> oldById = new HashMap<>(oldTeams.size() * 2);
+        for (Team team : oldTeams) {
+            oldById.put(team.getId(), team);
+        }
+        for (int i = 0; i < newTeams.size(); i++) {
+            Team oldTeam = oldById.get(newTeams.get(i).getId());
+            if (oldTeam != null && !sameContents(oldTeam, newTeams.get(i))) {
+                updates.change(i);
+            }
+        }
+        return updates.build();
+    }
+
+    /**
+     * Returns true if a row bound to {@code oldTeam} needs no rebinding to show {@code newTeam}.
+     * {@link Team#equals(Object)} leaves out the champion flag, which the row shows.
+     */
+    private static boolean sameContents(Team oldTeam, Team newTeam) {
+        return Objects.equal(oldTeam.getTitleForList(), newTeam.getTitleForList())
+                && oldTeam.isChampion() == newTeam.isChampion();
+    }
+
+    /**
+     * Returns the indexes of a longest strictly increasing subsequence of {@code values}.
+     */
+    private static int[] longestIncreasingRun(int[] values) {
+        // tails[k]: index of the smallest tail of an increasing run of length k + 1.
+        int[] tails = new int[values.length];
+        int[] previous = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        int[] run = new int[length];
+        for (int k = length - 1, i = length > 0 ? tails[length - 1] : -1; k >= 0; k--) {
+            run[k] = i;
+            i = previous[i];
+        }
+        return run;
+    }
+
+    /**
+     * Returns true if turning the old list into the new one takes no update.
+     */
+    boolean isEmpty() {
+        return mUpdateCount == 0;
+    }
+
+    void dispatchUpdatesTo(@NonNull UpdateCallback callback) {
+        for (int i = 0; i < mUpdateCount * 3; i += 3) {
+            int first = mUpdates[i + 1];
+            int second = mUpdates[i + 2];
+            switch (mUpdates[i]) {
+                case INSERT:
+                    callback.onInserted(first, second);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(first, second);
+                    break;
+                case MOVE:
+                    callback.onMoved(first, second);
+                    break;
+                default:
+                    callback.onChanged(first, second);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Collects updates, merging each one into the previous one when they cover adjacent rows.
+     */
+    private static final class Builder {
+
+        private int[] mUpdates = new int[3 * 8];
+
+        private int mCount;
+
+        void insert(int position) {
+            // Inserting backwards at the same spot grows the previous range to the left.
+            if (isLast(INSERT) && mUpdates[last() + 1] == position) {
+                mUpdates[last() + 2]++;
+            } else {
+                add(INSERT, position, 1);
+            }
+        }
+
+        void remove(int position) {
+            // Removals come from the end, so the next one sits just before the previous range.
+            if (isLast(REMOVE) && mUpdates[last() + 1] == position + 1) {
+                mUpdates[last() + 1] = position;
+                mUpdates[last() + 2]++;
+            } else {
+                add(REMOVE, position, 1);
+            }
+        }
+
+        void move(int from, int to) {
+            add(MOVE, from, to);
+        }
+
+        void change(int position) {
+            if (isLast(CHANGE)
+                    && mUpdates[last() + 1] + mUpdates[last() + 2] == position) {
+                mUpdates[last() + 2]++;
+            } else {
+                add(CHANGE, position, 1);
+            }
+        }
+
+        TeamsDiff build() {
+            return new TeamsDiff(mUpdates, mCount);
+        }
+
+        private boolean isLast(int kind) {
+            return mCount > 0 && mUpdates[last()] == kind;
+        }
+
+        private int last() {
+            return (mCount - 1) * 3;
+        }
+
+        private void add(int kind, int first, int second) {
+            if (mCount * 3 == mUpdates.length) {
+                mUpdates = Arrays.copyOf(mUpdates, mUpdates.length * 2);
+            }
+            mUpdates[mCount * 3] = kind;
+            mUpdates[mCount * 3 + 1] = first;
+            mUpdates[mCount * 3 + 2] = second;
+            mCount++;
+        }
+    }
+}
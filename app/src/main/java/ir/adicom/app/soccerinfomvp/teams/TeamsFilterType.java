@@ -1,5 +1,7 @@
 package ir.adicom.app.soccerinfomvp.teams;
 
+import ir.adicom.app.soccerinfomvp.data.Team;
+
 /**
  * Used with the filter spinner in the teams list.
  */
@@ -17,5 +19,19 @@ public enum TeamsFilterType {
     /**
      * Filters only the normal teams.
      */
-    NORMAL_TEAMS
+    NORMAL_TEAMS;
+
+    /**
+     * Returns true if {@code team} passes this filter.
+     */
+    public boolean matches(Team team) {
+        switch (this) {
+            case TOP_TEAMS:
+                return team.isChampion();
+            case NORMAL_TEAMS:
+                return !team.isChampion();
+            default:
+                return true;
+        }
+    }
 }
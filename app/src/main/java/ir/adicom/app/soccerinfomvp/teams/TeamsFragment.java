@@ -9,26 +9,28 @@ import android.support.design.widget.Snackbar;
 import android.support.v4.app.Fragment;
 import android.support.v4.content.ContextCompat;
 import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.PopupMenu;
+import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
-import android.widget.CheckBox;
+import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
-import android.widget.ListView;
 import android.widget.TextView;
 
-
 import java.util.ArrayList;
 import java.util.List;
 
 import ir.adicom.app.soccerinfomvp.R;
 import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.util.StartupTimeline;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -37,6 +39,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class TeamsFragment extends Fragment implements TeamsContract.View {
 
+    /**
+     * How many rows before the end of the list the next page is requested.
+     */
+    private static final int PREFETCH_DISTANCE = 15;
+
     private TeamsContract.Presenter mPresenter;
 
     private TeamsAdapter mListAdapter;
@@ -73,6 +80,18 @@ public class TeamsFragment extends Fragment implements TeamsContract.View {
         mPresenter.start();
     }
 
+    @Override
+    public void onPause() {
+        mPresenter.stop();
+        super.onPause();
+    }
+
+    @Override
+    public void onDestroyView() {
+        mPresenter.stop();
+        super.onDestroyView();
+    }
+
     @Override
     public void setPresenter(@NonNull TeamsContract.Presenter presenter) {
         mPresenter = checkNotNull(presenter);
@@ -90,8 +109,36 @@ public class TeamsFragment extends Fragment implements TeamsContract.View {
         View root = inflater.inflate(R.layout.teams_frag, container, false);
 
         // Set up tasks view
-        ListView listView = (ListView) root.findViewById(R.id.tasks_list);
+        RecyclerView listView = (RecyclerView) root.findViewById(R.id.tasks_list);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        listView.setLayoutManager(layoutManager);
         listView.setAdapter(mListAdapter);
+        listView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                // Ask for the next page before the user reaches the end of the list.
+                int totalItemCount = layoutManager.getItemCount();
+                if (totalItemCount > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= totalItemCount - 1 - PREFETCH_DISTANCE) {
+                    mPresenter.loadMoreTeams();
+                }
+            }
+        });
+        EditText searchView = (EditText) root.findViewById(R.id.searchTeams);
+        searchView.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mPresenter.filterTeams(s.toString());
+            }
+        });
         mFilteringLabelView = (TextView) root.findViewById(R.id.filteringLabel);
         mTeamsView = (LinearLayout) root.findViewById(R.id.tasksLL);
 
@@ -233,6 +280,12 @@ public class TeamsFragment extends Fragment implements TeamsContract.View {
 
         mTeamsView.setVisibility(View.VISIBLE);
         mNoTeamsView.setVisibility(View.GONE);
+        StartupTimeline.getInstance().finish("teams shown");
+    }
+
+    @Override
+    public void showMoreTeams(List<Team> teams) {
+        mListAdapter.appendData(teams);
     }
 
     @Override
@@ -274,6 +327,7 @@ public class TeamsFragment extends Fragment implements TeamsContract.View {
         mNoTeamMainView.setText(mainText);
         mNoTeamIcon.setImageDrawable(getResources().getDrawable(iconRes));
         mNoTeamAddView.setVisibility(showAddView ? View.VISIBLE : View.GONE);
+        StartupTimeline.getInstance().finish("no teams shown");
     }
 
     @Override
@@ -335,87 +389,6 @@ public class TeamsFragment extends Fragment implements TeamsContract.View {
         return isAdded();
     }
 
-    private static class TeamsAdapter extends BaseAdapter {
-
-        private List<Team> mTeams;
-        private TeamItemListener mItemListener;
-
-        public TeamsAdapter(List<Team> tasks, TeamItemListener itemListener) {
-            setList(tasks);
-            mItemListener = itemListener;
-        }
-
-        public void replaceData(List<Team> tasks) {
-            setList(tasks);
-            notifyDataSetChanged();
-        }
-
-        private void setList(List<Team> tasks) {
-            mTeams = checkNotNull(tasks);
-        }
-
-        @Override
-        public int getCount() {
-            return mTeams.size();
-        }
-
-        @Override
-        public Team getItem(int i) {
-            return mTeams.get(i);
-        }
-
-        @Override
-        public long getItemId(int i) {
-            return i;
-        }
-
-        @Override
-        public View getView(int i, View view, ViewGroup viewGroup) {
-            View rowView = view;
-            if (rowView == null) {
-                LayoutInflater inflater = LayoutInflater.from(viewGroup.getContext());
-                rowView = inflater.inflate(R.layout.team_item, viewGroup, false);
-            }
-
-            final Team task = getItem(i);
-
-            TextView titleTV = (TextView) rowView.findViewById(R.id.title);
-            titleTV.setText(task.getTitleForList());
-
-            CheckBox completeCB = (CheckBox) rowView.findViewById(R.id.complete);
-
-            // Active/champion task UI
-            completeCB.setChecked(task.isChampion());
-            if (task.isChampion()) {
-                rowView.setBackgroundDrawable(viewGroup.getContext()
-                        .getResources().getDrawable(R.drawable.list_champion_touch_feedback));
-            } else {
-                rowView.setBackgroundDrawable(viewGroup.getContext()
-                        .getResources().getDrawable(R.drawable.touch_feedback));
-            }
-
-            completeCB.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    if (!task.isChampion()) {
-                        mItemListener.onCompleteTeamClick(task);
-                    } else {
-                        mItemListener.onNormalTeamClick(task);
-                    }
-                }
-            });
-
-            rowView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    mItemListener.onTeamClick(task);
-                }
-            });
-
-            return rowView;
-        }
-    }
-
     public interface TeamItemListener {
 
         void onTeamClick(Team clickedTeam);
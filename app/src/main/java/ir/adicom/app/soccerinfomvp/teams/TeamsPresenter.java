@@ -2,13 +2,27 @@ package ir.adicom.app.soccerinfomvp.teams;
 
 import android.app.Activity;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.source.LoadToken;
 import ir.adicom.app.soccerinfomvp.data.source.TeamsDataSource;
 import ir.adicom.app.soccerinfomvp.data.source.TeamsRepository;
+import ir.adicom.app.soccerinfomvp.data.source.local.TeamsListSnapshot;
+import ir.adicom.app.soccerinfomvp.util.AppExecutors;
+import ir.adicom.app.soccerinfomvp.util.tracing.Span;
+import ir.adicom.app.soccerinfomvp.util.tracing.Tracing;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -18,26 +32,150 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class TeamsPresenter implements TeamsContract.Presenter {
 
+    /**
+     * Number of teams requested at a time while the user scrolls.
+     */
+    static final int PAGE_SIZE = 50;
+
+    /**
+     * Most teams shown for what the user typed.
+     */
+    static final int LOOKUP_LIMIT = 100;
+
+    private static final Comparator<Team> BY_ID = new Comparator<Team>() {
+        @Override
+        public int compare(Team lhs, Team rhs) {
+            return lhs.getId().compareTo(rhs.getId());
+        }
+    };
+
     private final TeamsRepository mTeamsRepository;
 
     private final TeamsContract.View mTeamsView;
 
+    /**
+     * The list last shown, drawn on the first load until the stored teams arrive, or null.
+     */
+    @Nullable
+    private final TeamsListSnapshot mTeamsListSnapshot;
+
+    /**
+     * Runs the lookups of what the user types, or null to run them on the calling thread.
+     */
+    @Nullable
+    private final AppExecutors mAppExecutors;
+
     private TeamsFilterType mCurrentFiltering = TeamsFilterType.ALL_TEAMS;
 
     private boolean mFirstLoad = true;
 
+    /**
+     * True if the teams shown changed since the snapshot was last saved.
+     */
+    private boolean mSnapshotStale;
+
+    /**
+     * True once the snapshot was saved. Later changes are only saved on {@link #stop()}, since
+     * each save is a file write queued on the disk thread.
+     */
+    private boolean mSnapshotSaved;
+
+    /**
+     * Id of the last team shown. The next page starts right after it.
+     */
+    @Nullable
+    private String mLastLoadedTeamId;
+
+    private int mLoadedTeamCount;
+
+    private boolean mHasMoreTeams;
+
+    private boolean mShowingLoadingIndicator;
+
+    /**
+     * The teams shown, in page order.
+     */
+    private final List<Team> mShownTeams = new ArrayList<>();
+
+    /**
+     * The reload of the list in flight. Cancelled when a newer reload starts so only the latest
+     * result reaches the view.
+     */
+    @Nullable
+    private LoadToken mListLoad;
+
+    /**
+     * The next page load in flight, or null if none is running.
+     */
+    @Nullable
+    private LoadToken mMoreTeamsLoad;
+
+    /**
+     * The forced reload whose stored teams are shown and whose network changes are still to come,
+     * or null if none is running.
+     */
+    @Nullable
+    private LoadToken mRevalidation;
+
+    /**
+     * What the user typed to filter the list, trimmed. Empty while the loaded pages are shown.
+     */
+    private String mQuery = "";
+
+    /**
+     * The lookup of the last thing typed in flight, or null if none is running.
+     */
+    @Nullable
+    private LoadToken mLookup;
+
+    /**
+     * Merges the changes made through the repository into the teams shown. Subscribed from
+     * {@link #start()} to {@link #stop()}.
+     */
+    private final TeamsRepository.TeamsObserver mTeamsObserver =
+            new TeamsRepository.TeamsObserver() {
+                @Override
+                public void onTeamsChanged(TeamChanges changes) {
+                    mergeChanges(changes);
+                }
+            };
+
     public TeamsPresenter(@NonNull TeamsRepository teamsRepository, @NonNull TeamsContract.View teamsView) {
+        this(teamsRepository, teamsView, null);
+    }
+
+    public TeamsPresenter(@NonNull TeamsRepository teamsRepository, @NonNull TeamsContract.View teamsView,
+                          @Nullable TeamsListSnapshot teamsListSnapshot) {
+        this(teamsRepository, teamsView, teamsListSnapshot, null);
+    }
+
+    public TeamsPresenter(@NonNull TeamsRepository teamsRepository, @NonNull TeamsContract.View teamsView,
+                          @Nullable TeamsListSnapshot teamsListSnapshot,
+                          @Nullable AppExecutors appExecutors) {
         mTeamsRepository = checkNotNull(teamsRepository, "teamsRepository cannot be null");
         mTeamsView = checkNotNull(teamsView, "teamsView cannot be null!");
+        mTeamsListSnapshot = teamsListSnapshot;
+        mAppExecutors = appExecutors;
 
         mTeamsView.setPresenter(this);
     }
 
     @Override
     public void start() {
+        if (mTeamsView.isActive()) {
+            mTeamsRepository.addTeamsObserver(mTeamsObserver);
+        }
         loadTeams(false);
     }
 
+    @Override
+    public void stop() {
+        mTeamsRepository.removeTeamsObserver(mTeamsObserver);
+        if (mSnapshotStale) {
+            saveSnapshot();
+        }
+    }
+
     @Override
     public void result(int requestCode, int resultCode) {
         // If a task was successfully added, show snackbar
@@ -48,89 +186,384 @@ public class TeamsPresenter implements TeamsContract.Presenter {
 
     @Override
     public void loadTeams(boolean forceUpdate) {
+        if (mFirstLoad) {
+            showSnapshot();
+        }
         // Simplification for sample: a network reload will be forced on first load.
         loadTeams(forceUpdate || mFirstLoad, true);
         mFirstLoad = false;
     }
 
     /**
-     * @param forceUpdate   Pass in true to refresh the data in the {@link TeamsDataSource}
+     * @param forceUpdate   Pass in true to refresh the data in the {@link TeamsDataSource}. The
+     *                      stored teams are shown right away and what the network changed is
+     *                      merged in when it arrives.
      * @param showLoadingUI Pass in true to display a loading icon in the UI
      */
     private void loadTeams(boolean forceUpdate, final boolean showLoadingUI) {
         if (showLoadingUI) {
             mTeamsView.setLoadingIndicator(true);
-        }
-        if (forceUpdate) {
-            mTeamsRepository.refreshTeams();
+            mShowingLoadingIndicator = true;
         }
 
         // The network request might be handled in a different thread so make sure Espresso knows
         // that the app is busy until the response is handled.
         // EspressoIdlingResource.increment(); // App is busy until further notice
 
-        mTeamsRepository.getTeams(new TeamsDataSource.LoadTeamsCallback() {
-            @Override
-            public void onTeamsLoaded(List<Team> teams) {
-                List<Team> teamsToShow = new ArrayList<Team>();
-
-                // This callback may be called twice, once for the cache and once for loading
-                // the data from the server API, so we check before decrementing, otherwise
-                // it throws "Counter has been corrupted!" exception.
-//                if (!EspressoIdlingResource.getIdlingResource().isIdleNow()) {
-//                    EspressoIdlingResource.decrement(); // Set app as idle.
-//                }
-
-                // We filter the teams based on the requestType
-                for (Team task : teams) {
-                    switch (mCurrentFiltering) {
-                        case ALL_TEAMS:
-                            teamsToShow.add(task);
-                            break;
-                        case NORMAL_TEAMS:
-                            if (task.isNormal()) {
-                                teamsToShow.add(task);
+        // Reload as many teams as are already shown so a reload doesn't cut the list short.
+        final int pageSize = Math.max(PAGE_SIZE, mLoadedTeamCount);
+        cancelPendingLoads();
+        final LoadToken load = new LoadToken();
+        mListLoad = load;
+
+        // Traced until the list is shown. A cancelled load's span never ends.
+        final Span span = Tracing.startSpan("TeamsPresenter.loadTeams");
+        Span.Scope scope = span.makeCurrent();
+        try {
+            if (forceUpdate) {
+                mTeamsRepository.revalidateTeams(mCurrentFiltering, pageSize, load,
+                        new TeamsRepository.RevalidateTeamsCallback() {
+                            @Override
+                            public void onTeamsLoaded(List<Team> teams) {
+                                mRevalidation = load;
+                                onListLoaded(teams, pageSize);
+                                span.end();
+                            }
+
+                            @Override
+                            public void onTeamsChanged(TeamChanges changes) {
+                                mRevalidation = null;
+                                mergeChanges(changes);
                             }
-                            break;
-                        case TOP_TEAMS:
-                            if (task.isChampion()) {
-                                teamsToShow.add(task);
+
+                            @Override
+                            public void onDataNotAvailable() {
+                                onListNotAvailable();
+                                span.end();
                             }
-                            break;
-                        default:
-                            teamsToShow.add(task);
-                            break;
-                    }
-                }
-                // The view may not be able to handle UI updates anymore
-                if (!mTeamsView.isActive()) {
-                    return;
+                        });
+                return;
+            }
+
+            mTeamsRepository.getTeamsPage(mCurrentFiltering, null, pageSize, load, new TeamsDataSource.LoadTeamsCallback() {
+                @Override
+                public void onTeamsLoaded(List<Team> teams) {
+                    onListLoaded(teams, pageSize);
+                    span.end();
                 }
-                if (showLoadingUI) {
-                    mTeamsView.setLoadingIndicator(false);
+
+                @Override
+                public void onDataNotAvailable() {
+                    onListNotAvailable();
+                    span.end();
                 }
+            });
+        } finally {
+            scope.close();
+        }
+    }
+
+    private void onListLoaded(List<Team> teams, int pageSize) {
+        mListLoad = null;
+        mLoadedTeamCount = 0;
+        mLastLoadedTeamId = null;
+        mShownTeams.clear();
+        onPageLoaded(teams, pageSize);
+        onSnapshotChanged();
+
+        // This callback may be called twice, once for the cache and once for loading
+        // the data from the server API, so we check before decrementing, otherwise
+        // it throws "Counter has been corrupted!" exception.
+//        if (!EspressoIdlingResource.getIdlingResource().isIdleNow()) {
+//            EspressoIdlingResource.decrement(); // Set app as idle.
+//        }
+
+        // The view may not be able to handle UI updates anymore
+        if (!mTeamsView.isActive()) {
+            return;
+        }
+        if (mShowingLoadingIndicator) {
+            // Also clears the indicator of a cancelled load this one replaced.
+            mTeamsView.setLoadingIndicator(false);
+            mShowingLoadingIndicator = false;
+        }
+
+        showTeamsOrMatches(teams);
+    }
 
-                processTeams(teamsToShow);
+    /**
+     * Draws the list last shown, if it was read already and shown with the current filter. The
+     * first load replaces it.
+     */
+    private void showSnapshot() {
+        if (mTeamsListSnapshot == null || !mTeamsView.isActive()) {
+            return;
+        }
+        List<Team> teams = mTeamsListSnapshot.peek(mCurrentFiltering);
+        if (teams != null && !teams.isEmpty()) {
+            mTeamsView.showTeams(teams);
+            showFilterLabel();
+        }
+    }
+
+    /**
+     * Saves the first page shown right away the first time, so a cold start soon after still
+     * finds it. Later changes wait for {@link #stop()}.
+     */
+    private void onSnapshotChanged() {
+        mSnapshotStale = true;
+        if (!mSnapshotSaved) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Keeps the first page shown for the next cold start.
+     */
+    private void saveSnapshot() {
+        mSnapshotStale = false;
+        if (mTeamsListSnapshot != null) {
+            mTeamsListSnapshot.save(mCurrentFiltering,
+                    mShownTeams.subList(0, Math.min(PAGE_SIZE, mShownTeams.size())));
+            mSnapshotSaved = true;
+        }
+    }
+
+    private void onListNotAvailable() {
+        mListLoad = null;
+        // The view may not be able to handle UI updates anymore
+        if (!mTeamsView.isActive()) {
+            return;
+        }
+        mTeamsView.showLoadingTeamsError();
+    }
+
+    /**
+     * Merges the teams changed, locally or by the network, into the ones shown. Changed teams are
+     * replaced in place, deleted ones removed, and new ones inserted if they fall within the loaded
+     * pages. A full snapshot replaces the teams shown with as many of its teams as were loaded.
+     */
+    private void mergeChanges(TeamChanges changes) {
+        List<Team> merged = changes.isFullSnapshot()
+                ? mergeSnapshot(changes.getUpdatedTeams()) : mergeDelta(changes);
+
+        mShownTeams.clear();
+        mShownTeams.addAll(merged);
+        mLoadedTeamCount = merged.size();
+        if (!merged.isEmpty()) {
+            mLastLoadedTeamId = merged.get(merged.size() - 1).getId();
+        }
+        onSnapshotChanged();
+
+        // The view may not be able to handle UI updates anymore
+        if (!mTeamsView.isActive()) {
+            return;
+        }
+        showTeamsOrMatches(merged);
+    }
+
+    /**
+     * Returns the first teams of {@code teams} matching the current filter, as many as a reload
+     * would show, without reading them back from the store. A page in flight is dropped since it
+     * continues the replaced list.
+     */
+    private List<Team> mergeSnapshot(List<Team> teams) {
+        List<Team> matching = new ArrayList<>(teams.size());
+        for (Team team : teams) {
+            if (mCurrentFiltering.matches(team)) {
+                matching.add(team);
+            }
+        }
+        Collections.sort(matching, BY_ID);
+
+        if (mMoreTeamsLoad != null) {
+            mMoreTeamsLoad.cancel();
+            mMoreTeamsLoad = null;
+        }
+        int shown = Math.max(PAGE_SIZE, mLoadedTeamCount);
+        mHasMoreTeams = matching.size() > shown;
+        return mHasMoreTeams ? new ArrayList<>(matching.subList(0, shown)) : matching;
+    }
+
+    private List<Team> mergeDelta(TeamChanges changes) {
+        Map<String, Team> updated = new HashMap<>();
+        for (Team team : changes.getUpdatedTeams()) {
+            updated.put(team.getId(), team);
+        }
+        Set<String> deleted = new HashSet<>(changes.getDeletedTeamIds());
+
+        List<Team> merged = new ArrayList<>(mShownTeams.size() + updated.size());
+        for (Team team : mShownTeams) {
+            Team update = updated.remove(team.getId());
+            Team shown = update != null ? update : team;
+            if (!deleted.contains(team.getId()) && mCurrentFiltering.matches(shown)) {
+                merged.add(shown);
+            }
+        }
+        for (Team team : updated.values()) {
+            // Teams past the loaded pages arrive with the next page.
+            boolean loaded = !mHasMoreTeams || mLastLoadedTeamId == null
+                    || team.getId().compareTo(mLastLoadedTeamId) <= 0;
+            if (loaded && mCurrentFiltering.matches(team)) {
+                merged.add(team);
             }
+        }
+        Collections.sort(merged, BY_ID);
+        return merged;
+    }
+
+    @Override
+    public void loadMoreTeams() {
+        // Matches for what was typed come all at once.
+        if (!mHasMoreTeams || mListLoad != null || mMoreTeamsLoad != null || !mQuery.isEmpty()) {
+            return;
+        }
+        mMoreTeamsLoad = new LoadToken();
+
+        mTeamsRepository.getTeamsPage(mCurrentFiltering, mLastLoadedTeamId, PAGE_SIZE, mMoreTeamsLoad,
+                new TeamsDataSource.LoadTeamsCallback() {
+                    @Override
+                    public void onTeamsLoaded(List<Team> teams) {
+                        mMoreTeamsLoad = null;
+                        onPageLoaded(teams, PAGE_SIZE);
+
+                        // The view may not be able to handle UI updates anymore
+                        if (!mTeamsView.isActive() || teams.isEmpty()) {
+                            return;
+                        }
+                        mTeamsView.showMoreTeams(teams);
+                    }
+
+                    @Override
+                    public void onDataNotAvailable() {
+                        mMoreTeamsLoad = null;
+                        mHasMoreTeams = false;
+                    }
+                });
+    }
+
+    /**
+     * Drops the results of every load in flight. Identical loads started afterwards still share
+     * the underlying fetch in the repository.
+     */
+    private void cancelPendingLoads() {
+        if (mListLoad != null) {
+            mListLoad.cancel();
+            mListLoad = null;
+        }
+        if (mMoreTeamsLoad != null) {
+            mMoreTeamsLoad.cancel();
+            mMoreTeamsLoad = null;
+        }
+        if (mRevalidation != null) {
+            mRevalidation.cancel();
+            mRevalidation = null;
+        }
+    }
+
+    private void onPageLoaded(List<Team> page, int pageSize) {
+        mShownTeams.addAll(page);
+        mLoadedTeamCount += page.size();
+        mHasMoreTeams = page.size() == pageSize;
+        if (!page.isEmpty()) {
+            mLastLoadedTeamId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public void filterTeams(@NonNull String query) {
+        String trimmed = checkNotNull(query, "query cannot be null!").trim();
+        if (trimmed.equals(mQuery)) {
+            return;
+        }
+        mQuery = trimmed;
+        if (!mQuery.isEmpty()) {
+            lookUpTeams();
+            return;
+        }
+        cancelLookup();
+        // The view may not be able to handle UI updates anymore
+        if (mTeamsView.isActive()) {
+            processTeams(new ArrayList<>(mShownTeams));
+        }
+    }
 
+    /**
+     * Shows {@code teams}, the loaded pages, unless the user typed something. Then shows the
+     * matches for it instead, looked up again since the teams may have changed.
+     */
+    private void showTeamsOrMatches(List<Team> teams) {
+        if (mQuery.isEmpty()) {
+            processTeams(teams);
+        } else {
+            lookUpTeams();
+        }
+    }
+
+    /**
+     * Looks up the teams matching what the user typed off the main thread, then shows them. Only
+     * the latest lookup is shown.
+     */
+    private void lookUpTeams() {
+        cancelLookup();
+        final LoadToken lookup = new LoadToken();
+        mLookup = lookup;
+        final String query = mQuery;
+        final TeamsFilterType filterType = mCurrentFiltering;
+
+        if (mAppExecutors == null) {
+            showMatches(lookup, mTeamsRepository.lookupTeams(query, filterType, LOOKUP_LIMIT));
+            return;
+        }
+        final Executor mainThread = mAppExecutors.mainThread();
+        mAppExecutors.computation().execute(new Runnable() {
             @Override
-            public void onDataNotAvailable() {
-                // The view may not be able to handle UI updates anymore
-                if (!mTeamsView.isActive()) {
-                    return;
-                }
-                mTeamsView.showLoadingTeamsError();
+            public void run() {
+                final List<Team> teams =
+                        mTeamsRepository.lookupTeams(query, filterType, LOOKUP_LIMIT);
+                mainThread.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        showMatches(lookup, teams);
+                    }
+                });
             }
         });
     }
 
+    private void showMatches(LoadToken lookup, List<Team> teams) {
+        if (lookup.isCancelled()) {
+            return;
+        }
+        mLookup = null;
+        // The view may not be able to handle UI updates anymore
+        if (!mTeamsView.isActive()) {
+            return;
+        }
+        processTeams(teams);
+    }
+
+    private void cancelLookup() {
+        if (mLookup != null) {
+            mLookup.cancel();
+            mLookup = null;
+        }
+    }
+
     private void processTeams(List<Team> teams) {
         if (teams.isEmpty()) {
             // Show a message indicating there are no teams for that filter type.
             processEmptyTeams();
         } else {
             // Show the list of teams
-            mTeamsView.showTeams(teams);
+            Span span = Tracing.startSpan("TeamsContract.View.showTeams");
+            Span.Scope scope = span.makeCurrent();
+            try {
+                mTeamsView.showTeams(teams);
+            } finally {
+                scope.close();
+                span.end();
+            }
             // Set the filter label's text.
             showFilterLabel();
         }
@@ -180,7 +613,6 @@ public class TeamsPresenter implements TeamsContract.Presenter {
         checkNotNull(championdTeam, "championdTeam cannot be null!");
         mTeamsRepository.championTeam(championdTeam);
         mTeamsView.showTeamMarkedComplete();
-        loadTeams(false, false);
     }
 
     @Override
@@ -188,14 +620,12 @@ public class TeamsPresenter implements TeamsContract.Presenter {
         checkNotNull(normalTeam, "normalTeam cannot be null!");
         mTeamsRepository.normalTeam(normalTeam);
         mTeamsView.showTeamMarkedActive();
-        loadTeams(false, false);
     }
 
     @Override
     public void clearChampionTeams() {
         mTeamsRepository.clearChampionTeams();
         mTeamsView.showChampionTeamsCleared();
-        loadTeams(false, false);
     }
 
     /**
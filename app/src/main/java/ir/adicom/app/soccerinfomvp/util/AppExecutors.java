@@ -0,0 +1,87 @@
+package ir.adicom.app.soccerinfomvp.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import ir.adicom.app.soccerinfomvp.util.tracing.Tracing;
+
+/**
+ * Global executor pools for the whole application.
+ * <p>
+ * Grouping tasks like this avoids the effects of task starvation (e.g. disk reads don't wait behind
+ * webservice requests).
+ * <p>
+ * Tasks run in the trace context they were submitted from, see {@link Tracing}.
+ */
+public class AppExecutors {
+
+    private static final int THREAD_COUNT = 3;
+
+    private final Executor mDiskIO;
+
+    private final Executor mNetworkIO;
+
+    private final Executor mComputation;
+
+    private final Executor mMainThread;
+
+    @VisibleForTesting
+    AppExecutors(Executor diskIO, Executor networkIO, Executor computation,
+                 Executor mainThread) {
+        mDiskIO = Tracing.propagating(diskIO, "disk");
+        mNetworkIO = Tracing.propagating(networkIO, "network");
+        mComputation = Tracing.propagating(computation, "computation");
+        mMainThread = Tracing.carryingContext(mainThread);
+    }
+
+    public AppExecutors() {
+        this(new DiskIOThreadExecutor(), Executors.newFixedThreadPool(THREAD_COUNT),
+                Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("computation").setDaemon(true).build()),
+                new MainThreadExecutor());
+    }
+
+    /**
+     * Runs database reads and writes. Backed by a single thread so disk operations are executed in
+     * the order they were submitted.
+     */
+    public Executor diskIO() {
+        return mDiskIO;
+    }
+
+    public Executor networkIO() {
+        return mNetworkIO;
+    }
+
+    /**
+     * Runs in-memory work too slow for the UI thread, like filtering the teams as the user types.
+     * Backed by a single thread, so it never waits for disk or network tasks.
+     */
+    public Executor computation() {
+        return mComputation;
+    }
+
+    /**
+     * Posts to the UI thread. Data sources use it to deliver their callbacks.
+     */
+    public Executor mainThread() {
+        return mMainThread;
+    }
+
+    private static class MainThreadExecutor implements Executor {
+
+        private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mMainThreadHandler.post(command);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ir.adicom.app.soccerinfomvp.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor that runs every task on the same background thread, one after the other.
+ */
+public class DiskIOThreadExecutor implements Executor {
+
+    private final Executor mDiskIO;
+
+    public DiskIOThreadExecutor() {
+        mDiskIO = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        mDiskIO.execute(command);
+    }
+}
@@ -0,0 +1,139 @@
+package ir.adicom.app.soccerinfomvp.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.google.common.base.Ticker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Milestones of a cold start, timed from the creation of the timeline, which the application
+ * does first thing. Each milestone records the thread it was reached on, to show what ran off the
+ * main thread.
+ * <p>
+ * The timeline is handed to the {@link Reporter} set, if any, when {@link #finish(String)} is
+ * first called; milestones after that are ignored. Safe to use from any thread.
+ */
+public final class StartupTimeline {
+
+    private static StartupTimeline INSTANCE = null;
+
+    private final Ticker mTicker;
+
+    private final long mStartNanos;
+
+    private final List<Milestone> mMilestones = new ArrayList<>();
+
+    private boolean mFinished;
+
+    @Nullable
+    private volatile Reporter mReporter;
+
+    @VisibleForTesting
+    StartupTimeline(@NonNull Ticker ticker) {
+        mTicker = checkNotNull(ticker);
+        mStartNanos = ticker.read();
+    }
+
+    /**
+     * Returns the single instance of this class, creating it, and so starting the clock, if
+     * necessary.
+     */
+    public static synchronized StartupTimeline getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new StartupTimeline(Ticker.systemTicker());
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Sends the timeline to {@code reporter} once it finishes, or nowhere if null.
+     */
+    public void setReporter(@Nullable Reporter reporter) {
+        mReporter = reporter;
+    }
+
+    /**
+     * Records that {@code milestone} was reached now, unless the timeline is finished.
+     */
+    public synchronized void mark(@NonNull String milestone) {
+        checkNotNull(milestone);
+        if (!mFinished) {
+            mMilestones.add(new Milestone(milestone, mTicker.read() - mStartNanos,
+                    Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * Records the last milestone and reports the timeline. Only the first call counts.
+     */
+    public void finish(@NonNull String milestone) {
+        String timeline;
+        synchronized (this) {
+            if (mFinished) {
+                return;
+            }
+            mark(milestone);
+            mFinished = true;
+            timeline = toString();
+        }
+        Reporter reporter = mReporter;
+        if (reporter != null) {
+            reporter.onFinished(timeline);
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return mFinished;
+    }
+
+    /**
+     * Returns the milestones in the order they were reached, e.g.
+     * {@code "application created +0ms [main], repository created +41ms [pool-1-thread-1]"}.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder timeline = new StringBuilder();
+        for (Milestone milestone : mMilestones) {
+            if (timeline.length() > 0) {
+                timeline.append(", ");
+            }
+            timeline.append(milestone.mName)
+                    .append(" +").append(TimeUnit.NANOSECONDS.toMillis(milestone.mOffsetNanos))
+                    .append("ms [").append(milestone.mThreadName).append(']');
+        }
+        return timeline.toString();
+    }
+
+    /**
+     * Receives the timeline once it finishes, on the thread that finished it.
+     */
+    public interface Reporter {
+
+        /**
+         * @param timeline the milestones, as {@link StartupTimeline#toString()} gives them
+         */
+        void onFinished(@NonNull String timeline);
+    }
+
+    private static final class Milestone {
+
+        private final String mName;
+
+        private final long mOffsetNanos;
+
+        private final String mThreadName;
+
+        Milestone(String name, long offsetNanos, String threadName) {
+            mName = name;
+            mOffsetNanos = offsetNanos;
+            mThreadName = threadName;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+/**
+ * Logs every span to logcat, one line each, under the {@code Tracing} tag. Lines of one trace
+ * share its id, so {@code adb logcat -s Tracing | grep trace=12} shows a single load.
+ */
+public class LogSpanReporter implements SpanReporter {
+
+    private static final String TAG = "Tracing";
+
+    @Override
+    public void onSpanEnded(@NonNull Span span) {
+        Log.d(TAG, span.toString());
+    }
+}
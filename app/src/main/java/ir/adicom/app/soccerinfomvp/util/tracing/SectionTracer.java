@@ -0,0 +1,14 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Shows the spans current on a thread as nested sections of a platform tracer, like systrace.
+ * Sections begin and end on the same thread.
+ */
+public interface SectionTracer {
+
+    void beginSection(@NonNull String name);
+
+    void endSection();
+}
@@ -0,0 +1,121 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One timed stage of a traced request, started with {@link Tracing#startSpan(String)}.
+ * <p>
+ * A span can end on a different thread than it started on, e.g. in a callback. While it is
+ * current on a thread, see {@link #makeCurrent()}, the spans started there become its children
+ * and the work is shown as a section, see {@link Tracing#setSectionTracer(SectionTracer)}.
+ */
+public final class Span {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final String mName;
+
+    private final long mTraceId;
+
+    private final long mSpanId;
+
+    /**
+     * Id of the parent span, or 0 for the root of a trace.
+     */
+    private final long mParentSpanId;
+
+    private final long mStartNanos;
+
+    private final AtomicBoolean mEnded = new AtomicBoolean();
+
+    private volatile long mDurationNanos = -1;
+
+    Span(@NonNull String name, @Nullable Span parent) {
+        mName = name;
+        mSpanId = NEXT_ID.getAndIncrement();
+        mTraceId = parent != null ? parent.mTraceId : mSpanId;
+        mParentSpanId = parent != null ? parent.mSpanId : 0;
+        mStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Makes this the current span of the calling thread until {@link Scope#close()}, which must
+     * be called on the same thread.
+     */
+    @NonNull
+    public Scope makeCurrent() {
+        return Tracing.enter(this);
+    }
+
+    /**
+     * Records the duration and reports the span. Only the first call counts.
+     */
+    public void end() {
+        if (mEnded.compareAndSet(false, true)) {
+            mDurationNanos = System.nanoTime() - mStartNanos;
+            Tracing.report(this);
+        }
+    }
+
+    @NonNull
+    public String getName() {
+        return mName;
+    }
+
+    public long getTraceId() {
+        return mTraceId;
+    }
+
+    public long getSpanId() {
+        return mSpanId;
+    }
+
+    public long getParentSpanId() {
+        return mParentSpanId;
+    }
+
+    /**
+     * Returns the duration, or -1 if the span hasn't ended.
+     */
+    public long getDurationNanos() {
+        return mDurationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "trace=" + mTraceId + " span=" + mSpanId + " parent=" + mParentSpanId + " "
+                + mName + " " + TimeUnit.NANOSECONDS.toMicros(mDurationNanos) + "us";
+    }
+
+    /**
+     * The time a span is current on a thread.
+     */
+    public static final class Scope {
+
+        @Nullable
+        private final Span mPrevious;
+
+        /**
+         * Where the section of this scope began, or null if it has none.
+         */
+        @Nullable
+        private final SectionTracer mSectionTracer;
+
+        Scope(@Nullable Span previous, @Nullable SectionTracer sectionTracer) {
+            mPrevious = previous;
+            mSectionTracer = sectionTracer;
+        }
+
+        /**
+         * Makes the previous span current again.
+         */
+        public void close() {
+            Tracing.exit(mPrevious, mSectionTracer);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives every {@link Span} once it ends, on the thread that ended it.
+ */
+public interface SpanReporter {
+
+    void onSpanEnded(@NonNull Span span);
+}
@@ -0,0 +1,30 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+
+/**
+ * Shows spans as {@link Trace android.os.Trace} sections, so the stages of a request show up in
+ * systrace. Needs API 18.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+public class SystraceSectionTracer implements SectionTracer {
+
+    /**
+     * Systrace drops longer section names.
+     */
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    @Override
+    public void beginSection(@NonNull String name) {
+        Trace.beginSection(name.length() > MAX_SECTION_NAME_LENGTH
+                ? name.substring(0, MAX_SECTION_NAME_LENGTH) : name);
+    }
+
+    @Override
+    public void endSection() {
+        Trace.endSection();
+    }
+}
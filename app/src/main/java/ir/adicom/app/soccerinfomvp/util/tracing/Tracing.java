@@ -0,0 +1,168 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Per-request tracing. A request carries a trace context, the current {@link Span}, from thread to
+ * thread, and each stage it goes through records a timed span into it.
+ * <p>
+ * The current span is kept per thread. Executors wrapped with
+ * {@link #propagating(Executor, String)} or {@link #carryingContext(Executor)} hand it over to the
+ * tasks they run, so a load started on the main thread keeps its context through the disk and
+ * network threads and back. Hops to a worker thread are recorded as spans of their own, from the
+ * task's submission to its end.
+ * <p>
+ * While a span is current it is also a section of the {@link SectionTracer} set, if any, so the
+ * stages show up in systrace. Spans ending on another thread than they started on only show up
+ * through their hops. The facade itself is plain Java; the app sets the Android backends.
+ */
+public final class Tracing {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    @Nullable
+    private static volatile SpanReporter sReporter;
+
+    @Nullable
+    private static volatile SectionTracer sSectionTracer;
+
+    private Tracing() {
+    }
+
+    /**
+     * Sends every span that ends from now on to {@code reporter}, or nowhere if null.
+     */
+    public static void setReporter(@Nullable SpanReporter reporter) {
+        sReporter = reporter;
+    }
+
+    /**
+     * Shows the spans made current from now on as sections of {@code sectionTracer}, or nowhere if
+     * null.
+     */
+    public static void setSectionTracer(@Nullable SectionTracer sectionTracer) {
+        sSectionTracer = sectionTracer;
+    }
+
+    /**
+     * Returns the current span of the calling thread, or null outside any trace.
+     */
+    @Nullable
+    public static Span currentSpan() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts a span as a child of the current one, or as the root of a new trace. It isn't made
+     * current; callers call {@link Span#makeCurrent()} around the work it covers.
+     */
+    @NonNull
+    public static Span startSpan(@NonNull String name) {
+        return new Span(checkNotNull(name), CURRENT.get());
+    }
+
+    /**
+     * Returns an executor running each task in the trace context it was submitted from, inside a
+     * span named {@code "hop @" + threadName}, a child of the submitting span.
+     */
+    @NonNull
+    public static Executor propagating(@NonNull final Executor executor,
+                                       @NonNull String threadName) {
+        checkNotNull(executor);
+        final String hopName = "hop @" + checkNotNull(threadName);
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                executor.execute(wrap(command, hopName));
+            }
+        };
+    }
+
+    /**
+     * Returns an executor running each task in the trace context it was submitted from, like
+     * {@link #propagating(Executor, String)}, but without recording a span for the hop. Meant for
+     * the main thread, which gets many short posts whose time the spans around them show anyway.
+     */
+    @NonNull
+    public static Executor carryingContext(@NonNull final Executor executor) {
+        checkNotNull(executor);
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                executor.execute(carry(command));
+            }
+        };
+    }
+
+    private static Runnable wrap(final Runnable command, String hopName) {
+        final Span submitter = CURRENT.get();
+        if (submitter == null) {
+            return command;
+        }
+        final Span hop = new Span(hopName, submitter);
+        return new Runnable() {
+            @Override
+            public void run() {
+                Span.Scope scope = hop.makeCurrent();
+                try {
+                    command.run();
+                } finally {
+                    scope.close();
+                    hop.end();
+                }
+            }
+        };
+    }
+
+    private static Runnable carry(final Runnable command) {
+        final Span submitter = CURRENT.get();
+        if (submitter == null) {
+            return command;
+        }
+        return new Runnable() {
+            @Override
+            public void run() {
+                Span previous = CURRENT.get();
+                CURRENT.set(submitter);
+                try {
+                    command.run();
+                } finally {
+                    exit(previous, null);
+                }
+            }
+        };
+    }
+
+    static Span.Scope enter(Span span) {
+        Span previous = CURRENT.get();
+        CURRENT.set(span);
+        SectionTracer sectionTracer = sSectionTracer;
+        if (sectionTracer != null) {
+            sectionTracer.beginSection(span.getName());
+        }
+        return new Span.Scope(previous, sectionTracer);
+    }
+
+    static void exit(@Nullable Span previous, @Nullable SectionTracer sectionTracer) {
+        if (sectionTracer != null) {
+            sectionTracer.endSection();
+        }
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static void report(Span span) {
+        SpanReporter reporter = sReporter;
+        if (reporter != null) {
+            reporter.onSpanEnded(span);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+/**
+ * Data source with no data that answers every load synchronously.
+ */
+public class EmptyTeamsDataSource implements TeamsDataSource {
+
+    @Override
+    public void getTeams(@NonNull LoadTeamsCallback callback) {
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void getTeams(@NonNull TeamsFilterType filterType,
+                         @NonNull LoadTeamsCallback callback) {
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                             int pageSize, @NonNull LoadTeamsCallback callback) {
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType,
+                            int offset, int pageSize, @NonNull LoadTeamsCallback callback) {
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void getTeam(@NonNull String teamId, @NonNull GetTeamCallback callback) {
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void getTeamChanges(long sinceVersion, @NonNull LoadTeamChangesCallback callback) {
+        callback.onDataNotAvailable();
+    }
+
+    @Override
+    public void getSyncVersion(@NonNull GetSyncVersionCallback callback) {
+        callback.onSyncVersionLoaded(TeamChanges.NO_VERSION);
+    }
+
+    @Override
+    public void applyTeamChanges(@NonNull TeamChanges changes) {
+    }
+
+    @Override
+    public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                  @NonNull PushTeamMutationsCallback callback) {
+        callback.onPushFailed();
+    }
+
+    @Override
+    public void saveTeam(@NonNull Team team) {
+    }
+
+    @Override
+    public void replaceAllTeams(@NonNull List<Team> teams) {
+    }
+
+    @Override
+    public void championTeam(@NonNull Team team) {
+    }
+
+    @Override
+    public void championTeam(@NonNull String teamId) {
+    }
+
+    @Override
+    public void normalTeam(@NonNull Team team) {
+    }
+
+    @Override
+    public void normalTeam(@NonNull String teamId) {
+    }
+
+    @Override
+    public void clearChampionTeams() {
+    }
+
+    @Override
+    public void refreshTeams() {
+    }
+
+    @Override
+    public void deleteAllTeams() {
+    }
+
+    @Override
+    public void deleteTeam(@NonNull String teamId) {
+    }
+}
@@ -0,0 +1,143 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link OutboxFlusher}, with an in-memory outbox and a remote data source that
+ * answer synchronously.
+ */
+public class OutboxFlusherTest {
+
+    private ScheduledExecutorService mScheduler;
+
+    private InMemoryOutbox mOutbox;
+
+    private RecordingRemoteDataSource mRemoteDataSource;
+
+    private OutboxFlusher mFlusher;
+
+    @Before
+    public void setupFlusher() {
+        mScheduler = Executors.newSingleThreadScheduledExecutor();
+        mOutbox = new InMemoryOutbox();
+        mRemoteDataSource = new RecordingRemoteDataSource();
+        mFlusher = new OutboxFlusher(mOutbox, mRemoteDataSource, mScheduler);
+    }
+
+    @After
+    public void shutdownScheduler() {
+        mScheduler.shutdownNow();
+    }
+
+    @Test
+    public void flushNow_sendsOutboxInBatches() {
+        for (int i = 0; i < 120; i++) {
+            mOutbox.add(TeamMutation.champion("team" + i));
+        }
+        RecordingFlushCallback callback = new RecordingFlushCallback();
+
+        mFlusher.flushNow(callback);
+
+        assertEquals(3, mRemoteDataSource.mBatchSizes.size());
+        assertEquals(OutboxFlusher.MAX_BATCH_SIZE, (int) mRemoteDataSource.mBatchSizes.get(0));
+        assertEquals(20, (int) mRemoteDataSource.mBatchSizes.get(2));
+        assertTrue(mOutbox.mPending.isEmpty());
+        assertEquals(1, callback.mCalls);
+        assertTrue(callback.mDrained);
+    }
+
+    @Test
+    public void flushNow_keepsOutboxWhenPushFails() {
+        mOutbox.add(TeamMutation.delete("team1"));
+        mRemoteDataSource.mFail = true;
+        RecordingFlushCallback callback = new RecordingFlushCallback();
+
+        mFlusher.flushNow(callback);
+
+        assertEquals(1, mOutbox.mPending.size());
+        assertEquals(0, mOutbox.mInFlight);
+        assertEquals(1, callback.mCalls);
+        assertFalse(callback.mDrained);
+    }
+
+    private static class InMemoryOutbox implements TeamsOutbox {
+
+        final List<TeamMutation> mPending = new ArrayList<>();
+
+        int mInFlight;
+
+        void add(TeamMutation mutation) {
+            mPending.add(mutation);
+        }
+
+        @Override
+        public void enqueue(@NonNull List<TeamMutation> mutations) {
+            mPending.addAll(mutations);
+        }
+
+        @Override
+        public void getPendingMutations(int limit, @NonNull LoadTeamMutationsCallback callback) {
+            List<TeamMutation> batch =
+                    new ArrayList<>(mPending.subList(0, Math.min(limit, mPending.size())));
+            mInFlight = batch.size();
+            callback.onTeamMutationsLoaded(batch);
+        }
+
+        @Override
+        public void removeMutations(@NonNull List<TeamMutation> mutations) {
+            mPending.subList(0, mutations.size()).clear();
+            mInFlight = 0;
+        }
+
+        @Override
+        public void releaseMutations() {
+            mInFlight = 0;
+        }
+    }
+
+    private static class RecordingRemoteDataSource extends EmptyTeamsDataSource {
+
+        final List<Integer> mBatchSizes = new ArrayList<>();
+
+        boolean mFail;
+
+        @Override
+        public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                      @NonNull PushTeamMutationsCallback callback) {
+            if (mFail) {
+                callback.onPushFailed();
+                return;
+            }
+            mBatchSizes.add(mutations.size());
+            callback.onTeamMutationsPushed();
+        }
+    }
+
+    private static class RecordingFlushCallback implements OutboxFlusher.FlushCallback {
+
+        int mCalls;
+
+        boolean mDrained;
+
+        @Override
+        public void onFlushed(boolean drained) {
+            mCalls++;
+            mDrained = drained;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TeamsCache}.
+ */
+public class TeamsCacheTest {
+
+    private static final Team TEAM1 = new Team("Title1", "Description1", "1", false);
+
+    private static final Team TEAM2 = new Team("Title2", "Description2", "2", true);
+
+    private static final Team TEAM3 = new Team("Title3", "Description3", "3", false);
+
+    private TeamsCache mCache;
+
+    private long mNowNanos;
+
+    private final Ticker mTicker = new Ticker() {
+        @Override
+        public long read() {
+            return mNowNanos;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mCache = new TeamsCache();
+    }
+
+    @Test
+    public void putOnColdCache_doesNotMakeListsAvailable() {
+        mCache.put(TEAM1);
+
+        assertFalse(mCache.isAvailable());
+        assertSame(TEAM1, mCache.get("1"));
+    }
+
+    @Test
+    public void replaceAll_keepsOrderAndClearsDirtyFlag() {
+        mCache.markDirty();
+        mCache.replaceAll(Lists.newArrayList(TEAM3, TEAM1, TEAM2));
+
+        assertTrue(mCache.isAvailable());
+        assertEquals(Lists.newArrayList(TEAM3, TEAM1, TEAM2),
+                mCache.snapshot().getTeams(TeamsFilterType.ALL_TEAMS));
+        assertEquals(Lists.newArrayList(TEAM3, TEAM1),
+                mCache.snapshot().getTeams(TeamsFilterType.NORMAL_TEAMS));
+    }
+
+    @Test
+    public void repeatedReads_returnSameList() {
+        mCache.replaceAll(Lists.newArrayList(TEAM1, TEAM2));
+        TeamsCache.Snapshot snapshot = mCache.snapshot();
+
+        assertSame(snapshot.getTeams(TeamsFilterType.ALL_TEAMS),
+                snapshot.getTeams(TeamsFilterType.ALL_TEAMS));
+        assertSame(snapshot.getTeams(TeamsFilterType.TOP_TEAMS),
+                snapshot.getTeams(TeamsFilterType.TOP_TEAMS));
+    }
+
+    @Test
+    public void writes_leaveEarlierSnapshotsUntouched() {
+        mCache.replaceAll(Lists.newArrayList(TEAM1, TEAM2));
+        TeamsCache.Snapshot before = mCache.snapshot();
+
+        mCache.put(TEAM3);
+        mCache.removeChampions();
+
+        List<Team> old = before.getTeams(TeamsFilterType.ALL_TEAMS);
+        assertEquals(Lists.newArrayList(TEAM1, TEAM2), old);
+        assertEquals(Lists.newArrayList(TEAM1, TEAM3),
+                mCache.snapshot().getTeams(TeamsFilterType.ALL_TEAMS));
+    }
+
+    @Test
+    public void overMaxEntries_evictsLeastRecentlyUsed() {
+        mCache = new TeamsCache(CachePolicy.maxEntries(2), mTicker);
+        mCache.replaceAll(Lists.newArrayList(TEAM1, TEAM2));
+        mNowNanos++;
+        mCache.get("1");
+        mNowNanos++;
+
+        mCache.put(TEAM3);
+
+        assertNull(mCache.get("2"));
+        assertSame(TEAM1, mCache.get("1"));
+        assertSame(TEAM3, mCache.get("3"));
+        assertEquals(1, mCache.stats().evictionCount());
+        // Some teams are gone, so lists can't be answered from memory any more.
+        assertNull(mCache.getTeams(TeamsFilterType.ALL_TEAMS));
+    }
+
+    @Test
+    public void replaceAllOverMaxEntries_isOverCapacityUntilTeamsAreRemoved() {
+        mCache = new TeamsCache(CachePolicy.maxEntries(2), mTicker);
+        mCache.replaceAll(Lists.newArrayList(TEAM1, TEAM2));
+        assertFalse(mCache.isOverCapacity());
+
+        mCache.replaceAll(Lists.newArrayList(TEAM1, TEAM2, TEAM3));
+        assertTrue(mCache.isOverCapacity());
+        assertFalse(mCache.isAvailable());
+
+        // A single write doesn't change what a full refresh would find.
+        mCache.put(TEAM3);
+        assertTrue(mCache.isOverCapacity());
+
+        mCache.remove("3");
+        assertFalse(mCache.isOverCapacity());
+    }
+
+    @Test
+    public void afterTimeToLive_servesStaleTeams() {
+        mCache = new TeamsCache(CachePolicy.unbounded().expireAfterWrite(1, TimeUnit.MINUTES),
+                mTicker);
+        mCache.replaceAll(Lists.newArrayList(TEAM1));
+        assertFalse(mCache.isExpired());
+
+        mNowNanos += TimeUnit.MINUTES.toNanos(1);
+
+        assertTrue(mCache.isExpired());
+        assertTrue(mCache.isExpired("1"));
+        assertEquals(Lists.newArrayList(TEAM1), mCache.getTeams(TeamsFilterType.ALL_TEAMS));
+    }
+
+    @Test
+    public void reads_countHitsAndMisses() {
+        mCache.getTeams(TeamsFilterType.ALL_TEAMS);
+        mCache.replaceAll(Lists.newArrayList(TEAM1));
+        mCache.getTeams(TeamsFilterType.ALL_TEAMS);
+        mCache.get("1");
+        mCache.get("2");
+
+        assertEquals(2, mCache.stats().hitCount());
+        assertEquals(2, mCache.stats().missCount());
+    }
+
+    @Test
+    public void applyDelta_updatesOnlyChangedTeams() {
+        mCache.replaceAll(Lists.newArrayList(TEAM1, TEAM2));
+        mCache.markDirty();
+        Team renamed = new Team("Renamed", "Description1", "1", false);
+
+        mCache.applyChanges(TeamChanges.delta(2, Lists.newArrayList(renamed, TEAM3),
+                Lists.newArrayList("2")));
+
+        assertTrue(mCache.isAvailable());
+        assertEquals(Lists.newArrayList(renamed, TEAM3),
+                mCache.getTeams(TeamsFilterType.ALL_TEAMS));
+    }
+}
@@ -0,0 +1,109 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TeamsPrefixIndex}.
+ */
+public class TeamsPrefixIndexTest {
+
+    private List<Team> mSource;
+
+    private int mSourceReads;
+
+    private TeamsPrefixIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mSource = Lists.newArrayList(
+                new Team("Real Madrid", "", "1", true),
+                new Team("Atletico Madrid", "", "2"),
+                new Team("Real Betis", "", "3"),
+                new Team("", "Madrid reserves", "4"));
+        mIndex = new TeamsPrefixIndex(new Supplier<List<Team>>() {
+            @Override
+            public List<Team> get() {
+                mSourceReads++;
+                return mSource;
+            }
+        });
+    }
+
+    @Test
+    public void normalize_ignoresCaseDiacriticsAndLetterForms() {
+        assertEquals("real madrid 2", TeamsPrefixIndex.normalize("  REAL-Madrid (2) "));
+        assertEquals("atletico", TeamsPrefixIndex.normalize("Atl\u00e9tico"));
+        // Keyhan typed on an Arabic keyboard, with Arabic kaf and yeh.
+        assertEquals("\u06a9\u06cc\u0647\u0627\u0646",
+                TeamsPrefixIndex.normalize("\u0643\u064a\u0647\u0627\u0646"));
+        // Diacritics, tatweel, a zero-width non-joiner and an alef with hamza.
+        assertEquals("\u0645\u0646\u0627\u0645",
+                TeamsPrefixIndex.normalize("\u0645\u064e\u0640\u0646\u200c\u0623\u0645"));
+        // Isolated presentation forms of beh and teh marbuta.
+        assertEquals("\u0628\u0647", TeamsPrefixIndex.normalize("\ufe8f\ufe93"));
+        // Persian and Arabic-Indic digits.
+        assertEquals("1400", TeamsPrefixIndex.normalize("\u06f1\u06f4\u0660\u0660"));
+    }
+
+    @Test
+    public void search_matchesWordPrefixesInAnyOrder() {
+        assertEquals(ids("4", "1"), ids(mIndex.search("mad RE", TeamsFilterType.ALL_TEAMS, 10)));
+        // Ordered by the matching word, then by title.
+        assertEquals(ids("3", "1", "4"), ids(mIndex.search("re", TeamsFilterType.ALL_TEAMS, 10)));
+        assertEquals(ids("3", "1"), ids(mIndex.search("re", TeamsFilterType.ALL_TEAMS, 2)));
+        assertEquals(ids("1"), ids(mIndex.search("madrid", TeamsFilterType.TOP_TEAMS, 10)));
+        assertTrue(mIndex.search(" - ", TeamsFilterType.ALL_TEAMS, 10).isEmpty());
+        assertTrue(mIndex.search("barcelona", TeamsFilterType.ALL_TEAMS, 10).isEmpty());
+        assertEquals(1, mSourceReads);
+    }
+
+    @Test
+    public void writes_patchBuiltIndex() {
+        mIndex.search("re", TeamsFilterType.ALL_TEAMS, 10);
+
+        mIndex.put(new Team("Rayo Vallecano", "", "5"));
+        mIndex.put(new Team("Real Sociedad", "", "3"));
+        mIndex.remove("4");
+        mIndex.applyChanges(TeamChanges.delta(1, Collections.singletonList(
+                new Team("Real Oviedo", "", "6")), Collections.singletonList("2")));
+
+        assertEquals(ids("1", "6", "3"), ids(mIndex.search("real", TeamsFilterType.ALL_TEAMS, 10)));
+        assertEquals(ids("5"), ids(mIndex.search("ra", TeamsFilterType.ALL_TEAMS, 10)));
+        assertTrue(mIndex.search("atl", TeamsFilterType.ALL_TEAMS, 10).isEmpty());
+
+        mIndex.removeChampions();
+        assertEquals(ids("6", "3"), ids(mIndex.search("real", TeamsFilterType.ALL_TEAMS, 10)));
+        assertEquals(1, mSourceReads);
+
+        mIndex.invalidate();
+        assertEquals(ids("3", "1"), ids(mIndex.search("real", TeamsFilterType.ALL_TEAMS, 10)));
+        assertEquals(2, mSourceReads);
+    }
+
+    private static List<String> ids(String... ids) {
+        return Lists.newArrayList(ids);
+    }
+
+    private static List<String> ids(List<Team> teams) {
+        List<String> ids = new ArrayList<>();
+        for (Team team : teams) {
+            ids.add(team.getId());
+        }
+        return ids;
+    }
+}
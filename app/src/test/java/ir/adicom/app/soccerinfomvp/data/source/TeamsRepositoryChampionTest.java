@@ -0,0 +1,119 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for championing and normaling teams the cache only holds as summaries.
+ */
+public class TeamsRepositoryChampionTest {
+
+    private static final String TEAM_ID = "team-1";
+
+    private StoringDataSource mRemoteDataSource;
+
+    private TeamsRepository mTeamsRepository;
+
+    @Before
+    public void setUp() {
+        mRemoteDataSource = new StoringDataSource();
+        mRemoteDataSource.mTeams.put(TEAM_ID, new Team("Title", "Description", TEAM_ID));
+        mTeamsRepository = TeamsRepository.getInstance(mRemoteDataSource,
+                new SummariesDataSource(Lists.newArrayList(Team.summary(TEAM_ID, "Title", false))));
+
+        // Warms the cache with the summaries of the local data source.
+        mTeamsRepository.getTeams(new TeamsDataSource.LoadTeamsCallback() {
+            @Override
+            public void onTeamsLoaded(List<Team> teams) {
+            }
+
+            @Override
+            public void onDataNotAvailable() {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        TeamsRepository.destroyInstance();
+    }
+
+    @Test
+    public void championSummary_keepsRemoteDescription() {
+        mTeamsRepository.championTeam(TEAM_ID);
+
+        Team stored = mRemoteDataSource.mTeams.get(TEAM_ID);
+        assertTrue(stored.isChampion());
+        assertEquals("Title", stored.getTitle());
+        assertEquals("Description", stored.getDescription());
+    }
+
+    @Test
+    public void normalSummary_keepsRemoteDescription() {
+        mTeamsRepository.championTeam(TEAM_ID);
+        mTeamsRepository.normalTeam(TEAM_ID);
+
+        Team stored = mRemoteDataSource.mTeams.get(TEAM_ID);
+        assertFalse(stored.isChampion());
+        assertEquals("Description", stored.getDescription());
+    }
+
+    /**
+     * Stores teams by id. A whole team replaces the stored one, an id only changes its flag.
+     */
+    private static class StoringDataSource extends EmptyTeamsDataSource {
+
+        final Map<String, Team> mTeams = new HashMap<>();
+
+        @Override
+        public void championTeam(@NonNull Team team) {
+            mTeams.put(team.getId(),
+                    new Team(team.getTitle(), team.getDescription(), team.getId(), true));
+        }
+
+        @Override
+        public void championTeam(@NonNull String teamId) {
+            mTeams.put(teamId, mTeams.get(teamId).withChampion(true));
+        }
+
+        @Override
+        public void normalTeam(@NonNull Team team) {
+            mTeams.put(team.getId(),
+                    new Team(team.getTitle(), team.getDescription(), team.getId()));
+        }
+
+        @Override
+        public void normalTeam(@NonNull String teamId) {
+            mTeams.put(teamId, mTeams.get(teamId).withChampion(false));
+        }
+    }
+
+    private static class SummariesDataSource extends EmptyTeamsDataSource {
+
+        private final List<Team> mSummaries;
+
+        SummariesDataSource(List<Team> summaries) {
+            mSummaries = summaries;
+        }
+
+        @Override
+        public void getTeams(@NonNull LoadTeamsCallback callback) {
+            callback.onTeamsLoaded(mSummaries);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the change stream of {@link TeamsRepository}.
+ */
+public class TeamsRepositoryChangesTest {
+
+    private ChampionsDataSource mLocalDataSource;
+
+    private TeamsRepository mTeamsRepository;
+
+    private final List<TeamChanges> mPublished = new ArrayList<>();
+
+    private final TeamsRepository.TeamsObserver mObserver = new TeamsRepository.TeamsObserver() {
+        @Override
+        public void onTeamsChanged(TeamChanges changes) {
+            mPublished.add(changes);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mLocalDataSource = new ChampionsDataSource();
+        mTeamsRepository = TeamsRepository.getInstance(new EmptyTeamsDataSource(), mLocalDataSource);
+        mTeamsRepository.addTeamsObserver(mObserver);
+    }
+
+    @After
+    public void tearDown() {
+        TeamsRepository.destroyInstance();
+    }
+
+    @Test
+    public void championAndNormal_publishOneUpsertEach() {
+        Team team = new Team("Title", "Description", "team-1");
+
+        mTeamsRepository.championTeam(team);
+        mTeamsRepository.normalTeam(team);
+
+        assertEquals(2, mPublished.size());
+        TeamChanges championed = mPublished.get(0);
+        assertEquals(1, championed.getVersion());
+        assertFalse(championed.isFullSnapshot());
+        assertEquals("team-1", championed.getUpdatedTeams().get(0).getId());
+        assertTrue(championed.getUpdatedTeams().get(0).isChampion());
+        assertEquals(2, mPublished.get(1).getVersion());
+        assertFalse(mPublished.get(1).getUpdatedTeams().get(0).isChampion());
+        assertEquals(2, mTeamsRepository.getChangeVersion());
+    }
+
+    @Test
+    public void clearChampionTeams_publishesStoredChampionsAsDeleted() {
+        mLocalDataSource.mChampions = Lists.newArrayList(
+                new Team("A", "", "a", true), new Team("B", "", "b", true));
+
+        mTeamsRepository.clearChampionTeams();
+
+        assertEquals(1, mPublished.size());
+        assertEquals(Lists.newArrayList("a", "b"), mPublished.get(0).getDeletedTeamIds());
+        assertTrue(mPublished.get(0).getUpdatedTeams().isEmpty());
+    }
+
+    @Test
+    public void removedObserver_isNotNotified() {
+        mTeamsRepository.removeTeamsObserver(mObserver);
+
+        mTeamsRepository.deleteTeam("team-1");
+
+        assertTrue(mPublished.isEmpty());
+        assertEquals(1, mTeamsRepository.getChangeVersion());
+    }
+
+    private static class ChampionsDataSource extends EmptyTeamsDataSource {
+
+        List<Team> mChampions = new ArrayList<>();
+
+        @Override
+        public void getTeams(@NonNull TeamsFilterType filterType,
+                             @NonNull LoadTeamsCallback callback) {
+            if (filterType == TeamsFilterType.TOP_TEAMS && !mChampions.isEmpty()) {
+                callback.onTeamsLoaded(mChampions);
+            } else {
+                callback.onDataNotAvailable();
+            }
+        }
+    }
+}
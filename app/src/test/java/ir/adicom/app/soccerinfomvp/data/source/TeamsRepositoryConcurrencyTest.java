@@ -0,0 +1,307 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the single-flight layer of {@link TeamsRepository} under the app's threading model: the
+ * repository is called and answers on one main thread, while the data sources do their work on
+ * disk and network threads and post their callbacks back to it. Many requests for the same data
+ * must trigger exactly one remote call, and every caller must get the result on the main thread,
+ * in the order it asked, with the cache already updated.
+ */
+public class TeamsRepositoryConcurrencyTest {
+
+    private static final int CALLERS = 64;
+
+    private static final String TEAM_ID = "team-1";
+
+    private ExecutorService mMainThread;
+
+    private ExecutorService mDiskIO;
+
+    private ExecutorService mNetworkIO;
+
+    private Thread mMain;
+
+    private DeferredRemoteDataSource mRemoteDataSource;
+
+    private TeamsRepository mTeamsRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        mMainThread = Executors.newSingleThreadExecutor(named("main"));
+        mDiskIO = Executors.newSingleThreadExecutor(named("disk"));
+        mNetworkIO = Executors.newSingleThreadExecutor(named("network"));
+        mMain = mMainThread.submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        }).get();
+        mRemoteDataSource = new DeferredRemoteDataSource();
+        mTeamsRepository = TeamsRepository.getInstance(mRemoteDataSource,
+                new DiskLocalDataSource());
+    }
+
+    @After
+    public void tearDown() {
+        mMainThread.shutdownNow();
+        mDiskIO.shutdownNow();
+        mNetworkIO.shutdownNow();
+        TeamsRepository.destroyInstance();
+    }
+
+    @Test
+    public void getTeamFromManyCallers_triggersOneRemoteCall() throws Exception {
+        final List<Integer> loaded = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        for (int i = 0; i < CALLERS; i++) {
+            final int caller = i;
+            mMainThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mTeamsRepository.getTeam(TEAM_ID, new TeamsDataSource.GetTeamCallback() {
+                        @Override
+                        public void onTeamLoaded(Team team) {
+                            threads.add(Thread.currentThread());
+                            loaded.add(caller);
+                        }
+
+                        @Override
+                        public void onDataNotAvailable() {
+                        }
+                    });
+                }
+            });
+        }
+        awaitIdle();
+
+        mRemoteDataSource.completeGetTeam(new Team("Title", "Description", TEAM_ID));
+        awaitIdle();
+
+        assertEquals(1, mRemoteDataSource.mGetTeamCalls.get());
+        assertEquals(callers(), loaded);
+        assertOnMainThread(threads);
+        assertNotNull(onMainThread(new Callable<Team>() {
+            @Override
+            public Team call() {
+                return mTeamsRepository.mCache.get(TEAM_ID);
+            }
+        }));
+    }
+
+    @Test
+    public void getTeamsFromManyCallers_withDirtyCache_triggersOneRemoteCall() throws Exception {
+        final List<Integer> loaded = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        final List<List<Team>> results = Collections.synchronizedList(new ArrayList<List<Team>>());
+        mMainThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                mTeamsRepository.refreshTeams();
+            }
+        });
+        for (int i = 0; i < CALLERS; i++) {
+            final int caller = i;
+            mMainThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mTeamsRepository.getTeams(new TeamsDataSource.LoadTeamsCallback() {
+                        @Override
+                        public void onTeamsLoaded(List<Team> teams) {
+                            threads.add(Thread.currentThread());
+                            loaded.add(caller);
+                            results.add(teams);
+                        }
+
+                        @Override
+                        public void onDataNotAvailable() {
+                        }
+                    });
+                }
+            });
+        }
+        awaitIdle();
+
+        mRemoteDataSource.completeGetTeamChanges(TeamChanges.fullSnapshot(1, Lists.newArrayList(
+                new Team("Title1", "Description1"), new Team("Title2", "Description2"))));
+        awaitIdle();
+
+        assertEquals(1, mRemoteDataSource.mGetTeamChangesCalls.get());
+        assertEquals(callers(), loaded);
+        assertOnMainThread(threads);
+        // Every caller sees the same list, and the cache holds it by the time they do.
+        for (List<Team> teams : results) {
+            assertSame(results.get(0), teams);
+        }
+        assertEquals(2, results.get(0).size());
+        assertEquals(2, (int) onMainThread(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return mTeamsRepository.mCache.snapshot().size();
+            }
+        }));
+    }
+
+    private void assertOnMainThread(List<Thread> threads) {
+        assertEquals(CALLERS, threads.size());
+        for (Thread thread : threads) {
+            assertSame(mMain, thread);
+        }
+    }
+
+    private static List<Integer> callers() {
+        List<Integer> callers = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(i);
+        }
+        return callers;
+    }
+
+    private <T> T onMainThread(Callable<T> read) throws Exception {
+        return mMainThread.submit(read).get();
+    }
+
+    /**
+     * Waits for the main, disk and network threads to run what was posted to them, and the hops
+     * that posts in turn, a few hops deep.
+     */
+    private void awaitIdle() throws Exception {
+        for (int pass = 0; pass < 3; pass++) {
+            for (ExecutorService executor : new ExecutorService[]{
+                    mMainThread, mDiskIO, mNetworkIO, mMainThread}) {
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                }).get();
+            }
+        }
+    }
+
+    private static ThreadFactory named(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Posts {@code callback} to the main thread after a hop through {@code worker}, the way the
+     * data sources deliver.
+     */
+    private void deliver(ExecutorService worker, final Runnable callback) {
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                mMainThread.execute(callback);
+            }
+        });
+    }
+
+    /**
+     * Local data source with no data that answers on the main thread after reading on the disk
+     * thread.
+     */
+    private class DiskLocalDataSource extends EmptyTeamsDataSource {
+
+        @Override
+        public void getTeams(@NonNull final LoadTeamsCallback callback) {
+            deliver(mDiskIO, new Runnable() {
+                @Override
+                public void run() {
+                    callback.onDataNotAvailable();
+                }
+            });
+        }
+
+        @Override
+        public void getTeam(@NonNull String teamId, @NonNull final GetTeamCallback callback) {
+            deliver(mDiskIO, new Runnable() {
+                @Override
+                public void run() {
+                    callback.onDataNotAvailable();
+                }
+            });
+        }
+    }
+
+    /**
+     * Remote data source that counts loads and holds their callbacks until the test completes
+     * them, so every request arrives while the first load is still in flight. Completed loads
+     * are delivered on the main thread after a hop through the network thread.
+     */
+    private class DeferredRemoteDataSource extends EmptyTeamsDataSource {
+
+        final AtomicInteger mGetTeamChangesCalls = new AtomicInteger();
+
+        final AtomicInteger mGetTeamCalls = new AtomicInteger();
+
+        private final List<LoadTeamChangesCallback> mTeamChangesCallbacks = new ArrayList<>();
+
+        private final List<GetTeamCallback> mTeamCallbacks = new ArrayList<>();
+
+        @Override
+        public synchronized void getTeamChanges(long sinceVersion,
+                                                @NonNull LoadTeamChangesCallback callback) {
+            mGetTeamChangesCalls.incrementAndGet();
+            mTeamChangesCallbacks.add(callback);
+        }
+
+        @Override
+        public synchronized void getTeam(@NonNull String teamId, @NonNull GetTeamCallback callback) {
+            mGetTeamCalls.incrementAndGet();
+            mTeamCallbacks.add(callback);
+        }
+
+        synchronized void completeGetTeamChanges(final TeamChanges changes) {
+            for (final LoadTeamChangesCallback callback : mTeamChangesCallbacks) {
+                deliver(mNetworkIO, new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onTeamChangesLoaded(changes);
+                    }
+                });
+            }
+            mTeamChangesCallbacks.clear();
+        }
+
+        synchronized void completeGetTeam(final Team team) {
+            for (final GetTeamCallback callback : mTeamCallbacks) {
+                deliver(mNetworkIO, new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onTeamLoaded(team);
+                    }
+                });
+            }
+            mTeamCallbacks.clear();
+        }
+    }
+}
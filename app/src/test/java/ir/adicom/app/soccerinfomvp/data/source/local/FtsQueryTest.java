@@ -0,0 +1,33 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for {@link FtsQuery}.
+ */
+public class FtsQueryTest {
+
+    @Test
+    public void prefixMatch_makesEveryWordAPrefix() {
+        assertEquals("real* madrid*", FtsQuery.prefixMatch("  Real MADRID ", null));
+        assertEquals("title:real* title:madrid*", FtsQuery.prefixMatch("Real Madrid", "title"));
+    }
+
+    @Test
+    public void prefixMatch_userSyntax_onlySeparatesWords() {
+        assertEquals("a* or* b* title* x*",
+                FtsQuery.prefixMatch("\"a\" OR -b* title:x", null));
+        // Non-ASCII text, here Persian, is kept as typed.
+        assertEquals("\u0627\u0633\u062a\u0642\u0644\u0627\u0644*", FtsQuery.prefixMatch(
+                "\u0627\u0633\u062a\u0642\u0644\u0627\u0644", null));
+    }
+
+    @Test
+    public void prefixMatch_noWord_returnsNull() {
+        assertNull(FtsQuery.prefixMatch("", null));
+        assertNull(FtsQuery.prefixMatch(" *:\"()- ", "title"));
+    }
+}
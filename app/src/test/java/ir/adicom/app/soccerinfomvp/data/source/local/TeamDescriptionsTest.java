@@ -0,0 +1,52 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import com.google.common.base.Strings;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TeamDescriptions}.
+ */
+public class TeamDescriptionsTest {
+
+    @Test
+    public void shortDescription_staysInline() {
+        // Persian text, "Esteghlal Tehran football team".
+        String description = Strings.repeat("x", TeamDescriptions.INLINE_LIMIT);
+
+        assertTrue(TeamDescriptions.isInline(description));
+        assertTrue(TeamDescriptions.isInline(null));
+        assertSame(description, TeamDescriptions.inlinePart(description));
+    }
+
+    @Test
+    public void longDescription_compressesAndKeepsPreview() {
+        // Persian text, "Esteghlal Tehran football team".
+        String description = Strings.repeat("\u062a\u06cc\u0645 \u0641\u0648\u062a\u0628\u0627\u0644 "
+                + "\u0627\u0633\u062a\u0642\u0644\u0627\u0644 \u062a\u0647\u0631\u0627\u0646 ", 40);
+
+        byte[] body = TeamDescriptions.compress(description);
+
+        assertFalse(TeamDescriptions.isInline(description));
+        assertTrue(body.length < description.length());
+        assertEquals(description, TeamDescriptions.decompress(body));
+        assertEquals(description.substring(0, TeamDescriptions.PREVIEW_LENGTH),
+                TeamDescriptions.inlinePart(description));
+    }
+
+    @Test
+    public void decompress_corruptBody_returnsNull() {
+        byte[] body = TeamDescriptions.compress(Strings.repeat("description ", 100));
+
+        assertNull(TeamDescriptions.decompress(new byte[]{1, 2, 3}));
+        assertNull(TeamDescriptions.decompress(Arrays.copyOf(body, body.length / 2)));
+    }
+}
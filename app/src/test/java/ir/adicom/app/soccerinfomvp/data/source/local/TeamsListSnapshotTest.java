@@ -0,0 +1,116 @@
+package ir.adicom.app.soccerinfomvp.data.source.local;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TeamsListSnapshot}, writing to a temporary file.
+ */
+public class TeamsListSnapshotTest {
+
+    private static final Executor INSTANT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private File mFile;
+
+    private final List<String> mErrors = new ArrayList<>();
+
+    private final TeamsListSnapshot.ErrorReporter mErrorReporter =
+            new TeamsListSnapshot.ErrorReporter() {
+                @Override
+                public void onError(@NonNull String message, @NonNull Exception e) {
+                    mErrors.add(message);
+                }
+            };
+
+    @Before
+    public void createFile() throws IOException {
+        mFile = File.createTempFile("teams", ".snapshot");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void deleteFile() {
+        mFile.delete();
+        new File(mFile.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void save_thenPreload_keepsRowsInOrder() {
+        new TeamsListSnapshot(mFile, INSTANT).save(TeamsFilterType.TOP_TEAMS, Lists.newArrayList(
+                new Team("B", "second", "2", true),
+                new Team("", "described only", "1", true)));
+
+        TeamsListSnapshot snapshot = new TeamsListSnapshot(mFile, INSTANT);
+        snapshot.preload();
+        List<Team> teams = snapshot.peek(TeamsFilterType.TOP_TEAMS);
+
+        assertEquals(2, teams.size());
+        assertEquals("2", teams.get(0).getId());
+        assertEquals("B", teams.get(0).getTitleForList());
+        assertTrue(teams.get(0).isChampion());
+        assertEquals("described only", teams.get(1).getTitleForList());
+        assertFalse(new File(mFile.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void peek_otherFilter_returnsNull() {
+        TeamsListSnapshot snapshot = new TeamsListSnapshot(mFile, INSTANT);
+        snapshot.save(TeamsFilterType.ALL_TEAMS, Lists.newArrayList(new Team("A", "")));
+
+        assertNull(snapshot.peek(TeamsFilterType.NORMAL_TEAMS));
+    }
+
+    @Test
+    public void preload_missingOrCorruptFile_readsAsNoSnapshot() throws IOException {
+        TeamsListSnapshot snapshot = new TeamsListSnapshot(mFile, INSTANT, mErrorReporter);
+        snapshot.preload();
+        assertNull(snapshot.peek(TeamsFilterType.ALL_TEAMS));
+        // No snapshot yet isn't an error.
+        assertTrue(mErrors.isEmpty());
+
+        FileOutputStream out = new FileOutputStream(mFile);
+        out.write(new byte[]{0x54, 0x53, 0x4e});
+        out.close();
+        snapshot.preload();
+        assertNull(snapshot.peek(TeamsFilterType.ALL_TEAMS));
+        assertEquals(1, mErrors.size());
+    }
+
+    @Test
+    public void save_unwritableFile_reportsAndKeepsContents() {
+        File unwritable = new File(new File(mFile.getPath() + ".missing"), "teams.snapshot");
+        TeamsListSnapshot snapshot = new TeamsListSnapshot(unwritable, INSTANT, mErrorReporter);
+
+        snapshot.save(TeamsFilterType.ALL_TEAMS, Lists.newArrayList(new Team("A", "")));
+
+        assertEquals(1, mErrors.size());
+        assertFalse(unwritable.exists());
+        // Still shown for the rest of this run.
+        assertEquals(1, snapshot.peek(TeamsFilterType.ALL_TEAMS).size());
+    }
+}
@@ -0,0 +1,95 @@
+package ir.adicom.app.soccerinfomvp.data.source.metrics;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.source.EmptyTeamsDataSource;
+import ir.adicom.app.soccerinfomvp.data.source.TeamsDataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link InstrumentedTeamsDataSource} reporting to an
+ * {@link InMemoryMetricsReporter}.
+ */
+public class InstrumentedTeamsDataSourceTest {
+
+    private InMemoryMetricsReporter mReporter;
+
+    private DeferredDataSource mDelegate;
+
+    private InstrumentedTeamsDataSource mDataSource;
+
+    @Before
+    public void setupDataSource() {
+        mReporter = new InMemoryMetricsReporter();
+        mDelegate = new DeferredDataSource();
+        mDataSource = new InstrumentedTeamsDataSource("local", mDelegate, mReporter);
+    }
+
+    @Test
+    public void getTeams_inFlightUntilCallback() {
+        mDataSource.getTeams(new NoOpCallback());
+        InMemoryMetricsReporter.OperationStats stats = mReporter.getOperation("local", "getTeams");
+        assertEquals(1, stats.getInFlight());
+        assertEquals(0, stats.getCount());
+
+        mDelegate.mCallback.onTeamsLoaded(Lists.newArrayList(new Team("A", ""), new Team("B", "")));
+
+        assertEquals(0, stats.getInFlight());
+        assertEquals(1, stats.getCount());
+        assertEquals(2, stats.getRows());
+        assertTrue(stats.getLatencyPercentileMicros(99) >= stats.getMaxLatencyMicros());
+    }
+
+    @Test
+    public void getTeams_countsNoData() {
+        mDataSource.getTeams(new NoOpCallback());
+        mDelegate.mCallback.onDataNotAvailable();
+
+        InMemoryMetricsReporter.OperationStats stats = mReporter.getOperation("local", "getTeams");
+        assertEquals(1, stats.getNotAvailableCount());
+        assertEquals(0, stats.getRows());
+    }
+
+    @Test
+    public void toJson_listsOperationsAndCaches() {
+        mDataSource.getTeams(new NoOpCallback());
+        mDelegate.mCallback.onTeamsLoaded(Lists.newArrayList(new Team("A", "")));
+
+        String json = mReporter.toJson();
+
+        assertTrue(json, json.startsWith(
+                "{\"operations\":[{\"source\":\"local\",\"operation\":\"getTeams\",\"count\":1,"));
+        assertTrue(json, json.endsWith("\"caches\":[]}"));
+    }
+
+    private static class DeferredDataSource extends EmptyTeamsDataSource {
+
+        LoadTeamsCallback mCallback;
+
+        @Override
+        public void getTeams(@NonNull LoadTeamsCallback callback) {
+            mCallback = callback;
+        }
+    }
+
+    private static class NoOpCallback implements TeamsDataSource.LoadTeamsCallback {
+
+        @Override
+        public void onTeamsLoaded(List<Team> teams) {
+        }
+
+        @Override
+        public void onDataNotAvailable() {
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ir.adicom.app.soccerinfomvp.teams;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Unit tests for the stable row ids of {@link TeamsAdapter}.
+ */
+public class TeamsAdapterTest {
+
+    private static final int TEAM_COUNT = 100000;
+
+    @Test
+    public void stableId_isFnv1aOfTeamId() {
+        assertEquals(0xcbf29ce484222325L, TeamsAdapter.stableId(""));
+        assertEquals(0xaf63dc4c8601ec8cL, TeamsAdapter.stableId("a"));
+        // The same id, built again, keeps its row id.
+        assertEquals(TeamsAdapter.stableId("team1"),
+                TeamsAdapter.stableId(new StringBuilder("team").append(1).toString()));
+        assertNotEquals(TeamsAdapter.stableId("team1"), TeamsAdapter.stableId("team2"));
+    }
+
+    @Test
+    public void stableId_doesNotCollideOverLargeLeagues() {
+        Random random = new Random(1);
+        Set<Long> uuidIds = new HashSet<>();
+        Set<Long> sequentialIds = new HashSet<>();
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            // Teams get random UUIDs. Numbered ids are short and differ in a few characters.
+            uuidIds.add(TeamsAdapter.stableId(
+                    new UUID(random.nextLong(), random.nextLong()).toString()));
+            sequentialIds.add(TeamsAdapter.stableId("team" + i));
+        }
+
+        assertEquals(TEAM_COUNT, uuidIds.size());
+        assertEquals(TEAM_COUNT, sequentialIds.size());
+    }
+}
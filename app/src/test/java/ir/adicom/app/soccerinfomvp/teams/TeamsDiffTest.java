@@ -0,0 +1,144 @@
+package ir.adicom.app.soccerinfomvp.teams;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TeamsDiff}. Each test replays the updates on the old ids and checks that
+ * they give the new ones.
+ */
+public class TeamsDiffTest {
+
+    private static final String INSERTED = "?";
+
+    @Test
+    public void sameTeams_noUpdates() {
+        List<Team> teams = teams("a", "b", "c");
+
+        assertTrue(TeamsDiff.calculate(teams, teams("a", "b", "c")).isEmpty());
+    }
+
+    @Test
+    public void championToggle_changesOneRow() {
+        List<Team> oldTeams = teams("a", "b", "c");
+        List<Team> newTeams = teams("a", "b", "c");
+        newTeams.set(1, new Team("b", "", "b", true));
+
+        ReplayingCallback replay = replay(oldTeams, newTeams);
+
+        assertEquals(Lists.newArrayList("change 1+1"), replay.mUpdates);
+    }
+
+    @Test
+    public void teamMovedToEnd_isOneMove() {
+        ReplayingCallback replay = replay(teams("a", "b", "c", "d"), teams("b", "c", "d", "a"));
+
+        assertEquals(Lists.newArrayList("move 0>3"), replay.mUpdates);
+    }
+
+    @Test
+    public void adjacentInsertsAndRemovals_areMerged() {
+        ReplayingCallback replay = replay(teams("a", "b", "c", "d"), teams("a", "x", "y", "d"));
+
+        assertEquals(Lists.newArrayList("remove 1+2", "insert 1+2"), replay.mUpdates);
+    }
+
+    @Test
+    public void randomLists_replayToNewList() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                ids.add("t" + i);
+            }
+            Collections.shuffle(ids, random);
+            List<Team> oldTeams = teams(ids.subList(0, random.nextInt(20)));
+            Collections.shuffle(ids, random);
+            List<Team> newTeams = teams(ids.subList(0, random.nextInt(20)));
+
+            replay(oldTeams, newTeams);
+        }
+    }
+
+    private static ReplayingCallback replay(List<Team> oldTeams, List<Team> newTeams) {
+        ReplayingCallback replay = new ReplayingCallback(ids(oldTeams));
+        TeamsDiff.calculate(oldTeams, newTeams).dispatchUpdatesTo(replay);
+        List<String> expected = ids(newTeams);
+        List<String> oldIds = ids(oldTeams);
+        for (int i = 0; i < expected.size(); i++) {
+            if (!oldIds.contains(expected.get(i))) {
+                // Inserted rows have no id until bound.
+                expected.set(i, INSERTED);
+            }
+        }
+        assertEquals(expected, replay.mIds);
+        return replay;
+    }
+
+    private static List<Team> teams(String... ids) {
+        return teams(Lists.newArrayList(ids));
+    }
+
+    private static List<Team> teams(List<String> ids) {
+        List<Team> teams = new ArrayList<>();
+        for (String id : ids) {
+            teams.add(new Team(id, "", id));
+        }
+        return teams;
+    }
+
+    private static List<String> ids(List<Team> teams) {
+        List<String> ids = new ArrayList<>();
+        for (Team team : teams) {
+            ids.add(team.getId());
+        }
+        return ids;
+    }
+
+    private static class ReplayingCallback implements TeamsDiff.UpdateCallback {
+
+        final List<String> mIds;
+
+        final List<String> mUpdates = new ArrayList<>();
+
+        ReplayingCallback(List<String> ids) {
+            mIds = new ArrayList<>(ids);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                mIds.add(position, INSERTED);
+            }
+            mUpdates.add("insert " + position + "+" + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mIds.subList(position, position + count).clear();
+            mUpdates.add("remove " + position + "+" + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mIds.add(toPosition, mIds.remove(fromPosition));
+            mUpdates.add("move " + fromPosition + ">" + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            mUpdates.add("change " + position + "+" + count);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ir.adicom.app.soccerinfomvp.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Allow instant execution of tasks, so JVM unit tests run every disk, network, computation and
+ * main thread hop synchronously on the calling thread.
+ */
+public class SingleExecutors extends AppExecutors {
+
+    private static Executor instant = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    public SingleExecutors() {
+        super(instant, instant, instant, instant);
+    }
+}
@@ -0,0 +1,84 @@
+package ir.adicom.app.soccerinfomvp.util;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Ticker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link StartupTimeline}.
+ */
+public class StartupTimelineTest {
+
+    private FakeTicker mTicker;
+
+    private StartupTimeline mTimeline;
+
+    private final List<String> mReported = new ArrayList<>();
+
+    @Before
+    public void setupTimeline() {
+        mTicker = new FakeTicker();
+        mTicker.advance(5, TimeUnit.SECONDS);
+        mTimeline = new StartupTimeline(mTicker);
+        mTimeline.setReporter(new StartupTimeline.Reporter() {
+            @Override
+            public void onFinished(@NonNull String timeline) {
+                mReported.add(timeline);
+            }
+        });
+    }
+
+    @Test
+    public void milestones_timedFromCreation() {
+        mTimeline.mark("application created");
+        mTicker.advance(40, TimeUnit.MILLISECONDS);
+        mTimeline.mark("repository created");
+
+        String thread = Thread.currentThread().getName();
+        assertEquals("application created +0ms [" + thread + "], "
+                + "repository created +40ms [" + thread + "]", mTimeline.toString());
+    }
+
+    @Test
+    public void finish_ignoresLaterMilestones() {
+        mTimeline.mark("application created");
+        mTicker.advance(300, TimeUnit.MILLISECONDS);
+        assertFalse(mTimeline.isFinished());
+
+        mTimeline.finish("teams shown");
+        mTimeline.finish("no teams shown");
+        mTimeline.mark("cache warm");
+
+        assertTrue(mTimeline.isFinished());
+        String thread = Thread.currentThread().getName();
+        assertEquals("application created +0ms [" + thread + "], "
+                + "teams shown +300ms [" + thread + "]", mTimeline.toString());
+        assertEquals(1, mReported.size());
+        assertEquals(mTimeline.toString(), mReported.get(0));
+    }
+
+    private static class FakeTicker extends Ticker {
+
+        private long mNanos;
+
+        @Override
+        public long read() {
+            return mNanos;
+        }
+
+        void advance(long time, TimeUnit unit) {
+            mNanos += unit.toNanos(time);
+        }
+    }
+}
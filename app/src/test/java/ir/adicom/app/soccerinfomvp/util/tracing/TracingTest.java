@@ -0,0 +1,182 @@
+package ir.adicom.app.soccerinfomvp.util.tracing;
+
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link Tracing} and {@link Span}.
+ */
+public class TracingTest {
+
+    private final List<Span> mEnded = new ArrayList<>();
+
+    @Before
+    public void setupReporter() {
+        Tracing.setReporter(new SpanReporter() {
+            @Override
+            public void onSpanEnded(@NonNull Span span) {
+                mEnded.add(span);
+            }
+        });
+    }
+
+    @After
+    public void removeReporter() {
+        Tracing.setReporter(null);
+        Tracing.setSectionTracer(null);
+    }
+
+    @Test
+    public void startSpan_childOfCurrentSpan() {
+        Span root = Tracing.startSpan("root");
+        Span.Scope scope = root.makeCurrent();
+        Span child = Tracing.startSpan("child");
+        scope.close();
+
+        assertEquals(0, root.getParentSpanId());
+        assertEquals(root.getSpanId(), root.getTraceId());
+        assertEquals(root.getSpanId(), child.getParentSpanId());
+        assertEquals(root.getTraceId(), child.getTraceId());
+        assertNull(Tracing.currentSpan());
+    }
+
+    @Test
+    public void makeCurrent_nestsSectionsOfSectionTracer() {
+        final List<String> sections = new ArrayList<>();
+        Tracing.setSectionTracer(new SectionTracer() {
+            @Override
+            public void beginSection(@NonNull String name) {
+                sections.add("begin " + name);
+            }
+
+            @Override
+            public void endSection() {
+                sections.add("end");
+            }
+        });
+
+        Span.Scope outer = Tracing.startSpan("outer").makeCurrent();
+        Span.Scope inner = Tracing.startSpan("inner").makeCurrent();
+        // A scope ends its section where it began it.
+        Tracing.setSectionTracer(null);
+        inner.close();
+        outer.close();
+
+        assertEquals(Arrays.asList("begin outer", "begin inner", "end", "end"), sections);
+    }
+
+    @Test
+    public void end_reportsOnce() {
+        Span span = Tracing.startSpan("span");
+
+        span.end();
+        span.end();
+
+        assertEquals(1, mEnded.size());
+        assertSame(span, mEnded.get(0));
+        assertTrue(span.getDurationNanos() >= 0);
+    }
+
+    @Test
+    public void propagating_runsTaskInSubmittersTrace() {
+        final List<Runnable> queued = new ArrayList<>();
+        Executor executor = Tracing.propagating(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                queued.add(command);
+            }
+        }, "disk");
+        final Span[] current = new Span[1];
+
+        Span root = Tracing.startSpan("load");
+        Span.Scope scope = root.makeCurrent();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                current[0] = Tracing.currentSpan();
+            }
+        });
+        scope.close();
+        queued.get(0).run();
+
+        Span hop = current[0];
+        assertEquals("hop @disk", hop.getName());
+        assertEquals(root.getSpanId(), hop.getParentSpanId());
+        assertEquals(root.getTraceId(), hop.getTraceId());
+        assertEquals(1, mEnded.size());
+        assertSame(hop, mEnded.get(0));
+        assertNull(Tracing.currentSpan());
+    }
+
+    @Test
+    public void propagating_hopNamesDoNotGrowAcrossHops() {
+        final List<Runnable> queued = new ArrayList<>();
+        final Executor executor = Tracing.propagating(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                queued.add(command);
+            }
+        }, "disk");
+
+        Span.Scope scope = Tracing.startSpan("load").makeCurrent();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                });
+            }
+        });
+        scope.close();
+        queued.get(0).run();
+        queued.get(1).run();
+
+        Span first = mEnded.get(0);
+        Span second = mEnded.get(1);
+        assertEquals("hop @disk", first.getName());
+        assertEquals("hop @disk", second.getName());
+        assertEquals(first.getSpanId(), second.getParentSpanId());
+    }
+
+    @Test
+    public void carryingContext_runsTaskInSubmittersSpanWithoutHop() {
+        final List<Runnable> queued = new ArrayList<>();
+        Executor executor = Tracing.carryingContext(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                queued.add(command);
+            }
+        });
+        final Span[] current = new Span[1];
+
+        Span root = Tracing.startSpan("load");
+        Span.Scope scope = root.makeCurrent();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                current[0] = Tracing.currentSpan();
+            }
+        });
+        scope.close();
+        queued.get(0).run();
+
+        assertSame(root, current[0]);
+        assertTrue(mEnded.isEmpty());
+        assertNull(Tracing.currentSpan());
+    }
+}
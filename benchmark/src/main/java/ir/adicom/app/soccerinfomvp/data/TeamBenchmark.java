@@ -0,0 +1,62 @@
+package ir.adicom.app.soccerinfomvp.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Team#equals(Object)}, {@link Team#hashCode()} and construction, with and without
+ * generating a random id.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamBenchmark {
+
+    private static final String ID = "2f0b4c3e-8a8e-4d6f-9b7a-1c2d3e4f5a6b";
+
+    // Equal but distinct instances, so equals compares every field.
+    private final Team mTeam = new Team(new String("Persepolis"), new String("Tehran"),
+            new String(ID));
+
+    private final Team mEqualTeam = new Team(new String("Persepolis"), new String("Tehran"),
+            new String(ID));
+
+    private final Team mOtherTeam = new Team("Esteghlal", "Tehran");
+
+    @Benchmark
+    public boolean equalsSameTeam() {
+        return mTeam.equals(mEqualTeam);
+    }
+
+    @Benchmark
+    public boolean equalsOtherTeam() {
+        return mTeam.equals(mOtherTeam);
+    }
+
+    @Benchmark
+    public int hashCodeTeam() {
+        return mTeam.hashCode();
+    }
+
+    @Benchmark
+    public Team newTeamWithRandomId() {
+        return new Team("Persepolis", "Tehran");
+    }
+
+    @Benchmark
+    public Team newTeamWithId() {
+        return new Team("Persepolis", "Tehran", ID);
+    }
+}
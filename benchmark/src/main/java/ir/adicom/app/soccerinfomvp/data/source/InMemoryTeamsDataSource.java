@@ -0,0 +1,177 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Suppliers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.data.TeamChanges;
+import ir.adicom.app.soccerinfomvp.data.TeamMutation;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+/**
+ * Data source holding a fixed set of teams in memory and answering every call synchronously, so
+ * benchmarks measure the repository rather than I/O. Writes are ignored.
+ */
+final class InMemoryTeamsDataSource implements TeamsDataSource {
+
+    private static final long VERSION = 1;
+
+    private final List<Team> mTeams;
+
+    private final Map<String, Team> mTeamsById;
+
+    /**
+     * Answers searches the way the repository's lookups do, built on the first search.
+     */
+    private final TeamsPrefixIndex mIndex;
+
+    InMemoryTeamsDataSource(@NonNull List<Team> teams) {
+        mTeams = Collections.unmodifiableList(new ArrayList<>(teams));
+        mTeamsById = new HashMap<>(teams.size() * 2);
+        for (Team team : teams) {
+            mTeamsById.put(team.getId(), team);
+        }
+        mIndex = new TeamsPrefixIndex(Suppliers.ofInstance(mTeams));
+    }
+
+    /**
+     * Returns {@code count} teams with stable ids, every third one a champion.
+     */
+    static List<Team> generateTeams(int count) {
+        List<Team> teams = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            teams.add(new Team("Team " + i, "Description " + i, String.format("team%06d", i),
+                    i % 3 == 0));
+        }
+        return teams;
+    }
+
+    @Override
+    public void getTeams(@NonNull LoadTeamsCallback callback) {
+        getTeams(TeamsFilterType.ALL_TEAMS, callback);
+    }
+
+    @Override
+    public void getTeams(@NonNull TeamsFilterType filterType,
+                         @NonNull LoadTeamsCallback callback) {
+        List<Team> teams = TeamsCache.filter(mTeams, filterType);
+        if (teams.isEmpty()) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onTeamsLoaded(teams);
+        }
+    }
+
+    @Override
+    public void getTeamsPage(@NonNull TeamsFilterType filterType, @Nullable String afterTeamId,
+                             int pageSize, @NonNull LoadTeamsCallback callback) {
+        List<Team> page = new ArrayList<>(pageSize);
+        boolean started = afterTeamId == null;
+        for (Team team : mTeams) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            if (started && filterType.matches(team)) {
+                page.add(team);
+            }
+            started |= team.getId().equals(afterTeamId);
+        }
+        if (page.isEmpty()) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onTeamsLoaded(page);
+        }
+    }
+
+    @Override
+    public void searchTeams(@NonNull String query, @NonNull TeamsFilterType filterType,
+                            int offset, int pageSize, @NonNull LoadTeamsCallback callback) {
+        List<Team> matches = mIndex.search(query, filterType, offset + pageSize);
+        if (matches.size() <= offset) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onTeamsLoaded(matches.subList(offset, matches.size()));
+        }
+    }
+
+    @Override
+    public void getTeam(@NonNull String teamId, @NonNull GetTeamCallback callback) {
+        Team team = mTeamsById.get(teamId);
+        if (team == null) {
+            callback.onDataNotAvailable();
+        } else {
+            callback.onTeamLoaded(team);
+        }
+    }
+
+    /**
+     * Always answers with a full snapshot, the most expensive change set to apply.
+     */
+    @Override
+    public void getTeamChanges(long sinceVersion, @NonNull LoadTeamChangesCallback callback) {
+        callback.onTeamChangesLoaded(TeamChanges.fullSnapshot(VERSION, mTeams));
+    }
+
+    @Override
+    public void getSyncVersion(@NonNull GetSyncVersionCallback callback) {
+        callback.onSyncVersionLoaded(TeamChanges.NO_VERSION);
+    }
+
+    @Override
+    public void applyTeamChanges(@NonNull TeamChanges changes) {
+    }
+
+    @Override
+    public void pushTeamMutations(@NonNull List<TeamMutation> mutations,
+                                  @NonNull PushTeamMutationsCallback callback) {
+        callback.onTeamMutationsPushed();
+    }
+
+    @Override
+    public void saveTeam(@NonNull Team team) {
+    }
+
+    @Override
+    public void replaceAllTeams(@NonNull List<Team> teams) {
+    }
+
+    @Override
+    public void championTeam(@NonNull Team team) {
+    }
+
+    @Override
+    public void championTeam(@NonNull String teamId) {
+    }
+
+    @Override
+    public void normalTeam(@NonNull Team team) {
+    }
+
+    @Override
+    public void normalTeam(@NonNull String teamId) {
+    }
+
+    @Override
+    public void clearChampionTeams() {
+    }
+
+    @Override
+    public void refreshTeams() {
+    }
+
+    @Override
+    public void deleteAllTeams() {
+    }
+
+    @Override
+    public void deleteTeam(@NonNull String teamId) {
+    }
+}
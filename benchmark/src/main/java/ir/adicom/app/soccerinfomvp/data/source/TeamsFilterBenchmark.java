@@ -0,0 +1,57 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+/**
+ * Filtering a list of teams, which {@link TeamsCache#filter(List, TeamsFilterType)} now does for
+ * the presenter and the repository.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamsFilterBenchmark {
+
+    private static final int TEAM_COUNT = 10000;
+
+    @Param({"TOP_TEAMS", "NORMAL_TEAMS"})
+    public TeamsFilterType filterType;
+
+    private List<Team> mTeams;
+
+    @Setup
+    public void createTeams() {
+        mTeams = InMemoryTeamsDataSource.generateTeams(TEAM_COUNT);
+    }
+
+    @Benchmark
+    public List<Team> cacheFilter() {
+        return TeamsCache.filter(mTeams, filterType);
+    }
+
+    @Benchmark
+    public void filterTypeMatches(Blackhole blackhole) {
+        for (Team team : mTeams) {
+            blackhole.consume(filterType.matches(team));
+        }
+    }
+}
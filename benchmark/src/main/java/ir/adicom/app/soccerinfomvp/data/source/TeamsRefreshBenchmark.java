@@ -0,0 +1,72 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+/**
+ * Refreshing the cache with every team, at 1k, 10k and 100k teams: on its own, as the
+ * repository's {@code refreshCache} does, and through a forced refresh of the repository.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamsRefreshBenchmark {
+
+    // Named without the m prefix: JMH reports parameters by field name.
+    @Param({"1000", "10000", "100000"})
+    public int teamCount;
+
+    private List<Team> mTeams;
+
+    private TeamsCache mCache;
+
+    private TeamsRepository mRepository;
+
+    private final TeamsRepositoryBenchmark.LastTeams mCallback =
+            new TeamsRepositoryBenchmark.LastTeams();
+
+    @Setup(Level.Trial)
+    public void createTeams() {
+        mTeams = InMemoryTeamsDataSource.generateTeams(teamCount);
+        mCache = new TeamsCache();
+        TeamsRepository.destroyInstance();
+        mRepository = TeamsRepository.getInstance(new InMemoryTeamsDataSource(mTeams),
+                new InMemoryTeamsDataSource(mTeams));
+    }
+
+    @Setup(Level.Invocation)
+    public void markDirty() {
+        mRepository.refreshTeams();
+    }
+
+    @Benchmark
+    public TeamsCache.Snapshot cacheReplaceAll() {
+        mCache.replaceAll(mTeams);
+        return mCache.snapshot();
+    }
+
+    @Benchmark
+    public List<Team> repositoryRefresh() {
+        mRepository.getTeams(TeamsFilterType.ALL_TEAMS, mCallback);
+        return mCallback.mTeams;
+    }
+}
@@ -0,0 +1,123 @@
+package ir.adicom.app.soccerinfomvp.data.source;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ir.adicom.app.soccerinfomvp.data.Team;
+import ir.adicom.app.soccerinfomvp.teams.TeamsFilterType;
+
+/**
+ * {@link TeamsRepository#getTeams(TeamsFilterType, TeamsDataSource.LoadTeamsCallback)} with a
+ * cached, a dirty and a cold cache, over in-memory data sources.
+ * <p>
+ * A dirty load syncs a full snapshot from the remote data source; a cold one reads every team
+ * from the local data source. Both end in a cache refresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeamsRepositoryBenchmark {
+
+    private static final int TEAM_COUNT = 1000;
+
+    @State(Scope.Thread)
+    public static class Repository {
+
+        TeamsRepository mRepository;
+
+        final LastTeams mCallback = new LastTeams();
+
+        @Setup(Level.Trial)
+        public void createRepository() {
+            List<Team> teams = InMemoryTeamsDataSource.generateTeams(TEAM_COUNT);
+            TeamsRepository.destroyInstance();
+            mRepository = TeamsRepository.getInstance(new InMemoryTeamsDataSource(teams),
+                    new InMemoryTeamsDataSource(teams));
+            // Warm the cache.
+            mRepository.getTeams(TeamsFilterType.ALL_TEAMS, mCallback);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DirtyRepository extends Repository {
+
+        @Setup(Level.Invocation)
+        public void markDirty() {
+            mRepository.refreshTeams();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdRepository {
+
+        final List<Team> mTeams = InMemoryTeamsDataSource.generateTeams(TEAM_COUNT);
+
+        TeamsRepository mRepository;
+
+        final LastTeams mCallback = new LastTeams();
+
+        @Setup(Level.Invocation)
+        public void createRepository() {
+            TeamsRepository.destroyInstance();
+            mRepository = TeamsRepository.getInstance(new InMemoryTeamsDataSource(mTeams),
+                    new InMemoryTeamsDataSource(mTeams));
+        }
+    }
+
+    @Benchmark
+    public List<Team> cachedAllTeams(Repository state) {
+        state.mRepository.getTeams(TeamsFilterType.ALL_TEAMS, state.mCallback);
+        return state.mCallback.mTeams;
+    }
+
+    @Benchmark
+    public List<Team> cachedTopTeams(Repository state) {
+        state.mRepository.getTeams(TeamsFilterType.TOP_TEAMS, state.mCallback);
+        return state.mCallback.mTeams;
+    }
+
+    @Benchmark
+    public List<Team> dirtyAllTeams(DirtyRepository state) {
+        state.mRepository.getTeams(TeamsFilterType.ALL_TEAMS, state.mCallback);
+        return state.mCallback.mTeams;
+    }
+
+    @Benchmark
+    public List<Team> coldAllTeams(ColdRepository state) {
+        state.mRepository.getTeams(TeamsFilterType.ALL_TEAMS, state.mCallback);
+        return state.mCallback.mTeams;
+    }
+
+    /**
+     * Keeps the last teams delivered, which the benchmark returns so the load isn't optimised
+     * away.
+     */
+    static final class LastTeams implements TeamsDataSource.LoadTeamsCallback {
+
+        List<Team> mTeams;
+
+        @Override
+        public void onTeamsLoaded(List<Team> teams) {
+            mTeams = teams;
+        }
+
+        @Override
+        public void onDataNotAvailable() {
+            throw new IllegalStateException("In-memory data sources always have teams");
+        }
+    }
+}